@@ -0,0 +1,75 @@
+package com.sosproject;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Core board operations on a half-filled position, per board size. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+  @Param({"3", "5", "8", "10"})
+  int size;
+
+  SosGameBase game;
+  Strategy random;
+  int[] emptyCells;
+  int[] filledCells;
+  int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    game = new GeneralSosGame(size);
+    Strategy fill = new RandomStrategy(42L);
+    // Half-fill the board with a game that is still running.
+    while (game.getMoveCount() < size * size / 2) game.makeMove(fill.choose(game));
+    int empties = 0;
+    for (int cell = 0; cell < size * size; cell++) if (game.isCellEmpty(cell / size, cell % size)) empties++;
+    emptyCells = new int[empties];
+    filledCells = new int[size * size - empties];
+    int e = 0, f = 0;
+    for (int cell = 0; cell < size * size; cell++) {
+      if (game.isCellEmpty(cell / size, cell % size)) emptyCells[e++] = cell;
+      else filledCells[f++] = cell;
+    }
+    random = new RandomStrategy(7L);
+  }
+
+  /** placeLetter on a fresh empty cell each time, undone so the position stays fixed. */
+  @Benchmark
+  public int placeLetterAndUndo() {
+    int cell = emptyCells[next++ % emptyCells.length];
+    game.placeLetter(cell / size, cell % size, (next & 1) == 0 ? SosGameBase.Cell.S : SosGameBase.Cell.O);
+    int score = game.getScoreA();
+    game.unmakeMove();
+    return score;
+  }
+
+  @Benchmark
+  public int countSOSAt() {
+    int cell = filledCells[next++ % filledCells.length];
+    return game.countSOSAt(cell / size, cell % size);
+  }
+
+  @Benchmark
+  public boolean isBoardFull() {
+    return game.isBoardFull();
+  }
+
+  @Benchmark
+  public Move randomChoose() {
+    return random.choose(game);
+  }
+
+  /** A whole random game from an empty board. */
+  @Benchmark
+  public void randomPlayout(Blackhole bh) {
+    SosGameBase g = SosGames.create(size, GameMode.GENERAL);
+    while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) g.makeMove(random.choose(g));
+    bh.consume(g.getStatus());
+  }
+}
@@ -0,0 +1,77 @@
+package com.sosproject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Recording and replay I/O: per-move write cost and loading large recordings. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordingBenchmark {
+  Path dir;
+  TextGameRecorder recorder;
+  SosGameBase game;
+  int index;
+
+  /** A recording of one long game, only for {@link #load}, so the write benchmark runs once. */
+  @State(Scope.Benchmark)
+  public static class BigRecording {
+    @Param({"100000", "1000000"})
+    int lines;
+
+    Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+      // Readers replay every move, so the moves must be legal: all O on a board just big enough
+      // never scores, and the turn simply alternates.
+      int size = (int) Math.ceil(Math.sqrt(lines));
+      file = Files.createTempFile("sos-bench", ".txt");
+      try (Writer w = Files.newBufferedWriter(file)) {
+        w.write("SOSv1,size=" + size + ",mode=GENERAL,playerA=COMPUTER,playerB=COMPUTER\n");
+        for (int i = 0; i < lines; i++) {
+          w.write((i + 1) + "," + ((i & 1) == 0 ? "A" : "B") + "," + i / size + "," + i % size + ",O,0,0,IN_PROGRESS\n");
+        }
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      Files.delete(file);
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("sos-bench");
+    game = new GeneralSosGame(10);
+    recorder = new TextGameRecorder(dir.resolve("record.txt"));
+    recorder.start(game, PlayerType.COMPUTER, PlayerType.COMPUTER);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    recorder.close();
+    try (var files = Files.list(dir)) {
+      for (Path p : files.toList()) Files.delete(p);
+    }
+    Files.delete(dir);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public void recordMove() throws IOException {
+    recorder.recordMove(++index, (index & 1) == 0, 0, 0, SosGameBase.Cell.S, game);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public GameReplayer.Loaded load(BigRecording big) throws IOException {
+    return GameReplayer.load(big.file);
+  }
+}
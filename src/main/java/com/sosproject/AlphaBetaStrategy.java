@@ -0,0 +1,324 @@
+package com.sosproject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Negamax alpha-beta search with iterative deepening and a Zobrist-keyed transposition table.
+ * Strategies can also share an {@link EvaluationCache}, which is keyed on the canonical hash so
+ * one entry serves all eight symmetric positions; it holds values only, since best moves depend
+ * on the orientation.
+ *
+ * <p>Values are the net number of SOS lines the side to move will still gain, so they depend only
+ * on the board and not on who is to move or the scores so far. In Simple mode completing a line
+ * is worth {@link #WIN}. A General-mode move that scores keeps the turn, so the child value is
+ * added rather than negated.
+ *
+ * <p>The search is anytime (see {@link Strategy#choose(SosGameBase, SearchLimits, java.util.function.Consumer)}).
+ * A deadline, node limit or interrupt ends it with the best move so far: that of the deepest
+ * finished iteration, or a better one the unfinished iteration has already proved, since it
+ * searches the previous best move first. Each finished iteration reports its principal
+ * variation, read back from the transposition table.
+ */
+public class AlphaBetaStrategy implements Strategy {
+  static final int WIN = 10_000;
+  private static final int INF = 1_000_000;
+
+  private static final int EXACT = 0, LOWER = 1, UPPER = 2;
+  private static final int NO_MOVE = -1;
+  private static final int NO_VALUE = Integer.MIN_VALUE;
+
+  private final long budgetNanos;
+  private final int maxDepth;
+
+  // Transposition table as parallel arrays; data packs value | depth << 32 | bound << 40 | age << 42.
+  private final long[] ttKeys;
+  private final long[] ttData;
+  private final int[] ttMoves;
+  private final int ttMask;
+  private int age;
+  private final EvaluationCache shared; // may be null
+
+  // Per-search state.
+  private SosGameBase game;
+  private ThreatIndex threats;
+  private int size;
+  private SearchLimits limits;
+  private long nodes;
+  private int[][] moveBuf;
+
+  private int rootBest;
+  private int rootValue;
+
+  private long lastNodes;
+  private long lastNanos;
+  private int lastDepth;
+  private int lastValue;
+
+  public AlphaBetaStrategy() { this(1000L); }
+  public AlphaBetaStrategy(long moveBudgetMillis) { this(moveBudgetMillis, Integer.MAX_VALUE, 1 << 18); }
+
+  /** @param ttEntries transposition table size, rounded up to a power of two */
+  public AlphaBetaStrategy(long moveBudgetMillis, int maxDepth, int ttEntries) {
+    this(moveBudgetMillis, maxDepth, ttEntries, null);
+  }
+
+  /** @param shared cache of search values shared with other strategies, or null */
+  public AlphaBetaStrategy(long moveBudgetMillis, int maxDepth, int ttEntries, EvaluationCache shared) {
+    if (moveBudgetMillis <= 0) throw new IllegalArgumentException("Budget must be positive");
+    if (maxDepth < 1) throw new IllegalArgumentException("Depth must be at least 1");
+    if (ttEntries < 1 || ttEntries > 1 << 26) throw new IllegalArgumentException("Table size must be 1..2^26");
+    this.budgetNanos = moveBudgetMillis * 1_000_000L;
+    this.maxDepth = maxDepth;
+    int cap = 1;
+    while (cap < ttEntries) cap <<= 1;
+    this.ttKeys = new long[cap];
+    this.ttData = new long[cap];
+    this.ttMoves = new int[cap];
+    this.ttMask = cap - 1;
+    this.shared = shared;
+  }
+
+  @Override
+  public Move choose(SosGameBase g) {
+    return choose(g, new SearchLimits(System.nanoTime() + budgetNanos, Long.MAX_VALUE), null);
+  }
+
+  @Override
+  public Move choose(SosGameBase g, SearchLimits limits, Consumer<SearchProgress> progress) {
+    if (g.getStatus() != SosGameBase.Status.IN_PROGRESS) return null;
+    long start = System.nanoTime();
+    long allocated = EngineMetrics.ENABLED ? EngineMetrics.allocatedBytes() : 0L;
+    this.limits = limits;
+    game = g.copy();
+    threats = game.getThreats();
+    size = g.getSize();
+    int empties = game.getEmptyCount();
+    if (empties == 0) return null;
+    nodes = 0;
+    age = (age + 1) & 0xFF;
+    moveBuf = new int[empties][];
+
+    int best = NO_MOVE;
+    int depthLimit = Math.min(maxDepth, empties);
+    for (int depth = 1; depth <= depthLimit; depth++) {
+      try {
+        searchRoot(depth, best);
+        best = rootBest;
+        lastValue = rootValue;
+        lastDepth = depth;
+        if (progress != null) progress.accept(new SearchProgress(depth, nodes, System.nanoTime() - start, lastValue, principalVariation(depth)));
+        if (Math.abs(lastValue) >= WIN) break; // forced result found; deeper search adds nothing
+      } catch (Timeout t) {
+        // The previous best was searched first, so any move that beat it is proven better.
+        if (rootBest != NO_MOVE) {
+          best = rootBest;
+          lastValue = rootValue;
+        }
+        break;
+      }
+    }
+    if (best == NO_MOVE) best = firstLegalMove();
+
+    lastNodes = nodes;
+    lastNanos = System.nanoTime() - start;
+    if (EngineMetrics.ENABLED) EngineMetrics.INSTANCE.searched(start, nodes, allocated);
+    game = null;
+    threats = null;
+    moveBuf = null;
+    this.limits = null;
+    return toMove(best);
+  }
+
+  public long getLastNodes() { return lastNodes; }
+  public int getLastDepth() { return lastDepth; }
+  /** Search value of the last chosen move for the side that made it. */
+  public int getLastValue() { return lastValue; }
+  public double getLastNodesPerSecond() {
+    return lastNanos == 0 ? 0.0 : lastNodes * 1e9 / lastNanos;
+  }
+
+  /** Searches the root to {@code depth}, leaving the best move so far in {@link #rootBest} as it goes. */
+  private void searchRoot(int depth, int preferred) {
+    int[] moves = generate(0, preferred);
+    int count = moves[moves.length - 1];
+    int alpha = -INF, beta = INF;
+    rootBest = NO_MOVE;
+    for (int k = 0; k < count; k++) {
+      int v = searchMove(moves[k], depth, 0, alpha, beta);
+      if (v > alpha) {
+        alpha = v;
+        rootBest = moves[k];
+        rootValue = v;
+      }
+    }
+    store(depth, alpha, EXACT, rootBest);
+  }
+
+  private int search(int depth, int ply, int alpha, int beta) {
+    if (++nodes >= limits.maxNodes()
+        || (nodes & 1023) == 0 && (limits.expired(System.nanoTime()) || Thread.currentThread().isInterrupted())) {
+      throw Timeout.INSTANCE;
+    }
+    if (depth == 0) {
+      // In Simple mode an open SOS at the horizon is a win for the side to move.
+      return game.getMode() == GameMode.SIMPLE && threats.getCompletingCount() > 0 ? WIN : 0;
+    }
+
+    long key = game.getHash();
+    int slot = (int) key & ttMask;
+    int ttMove = NO_MOVE;
+    if (ttKeys[slot] == key) {
+      ttMove = ttMoves[slot];
+      int v = cutoff(ttData[slot], depth, alpha, beta);
+      if (v != NO_VALUE) return v;
+    }
+    if (shared != null) {
+      long d = shared.get(game.getCanonicalHash());
+      if (d != EvaluationCache.MISS) {
+        int v = cutoff(d, depth, alpha, beta);
+        if (v != NO_VALUE) return v;
+      }
+    }
+
+    int[] moves = generate(ply, ttMove);
+    int count = moves[moves.length - 1];
+    int origAlpha = alpha;
+    int best = -INF, bestMove = NO_MOVE;
+    for (int k = 0; k < count; k++) {
+      int v = searchMove(moves[k], depth, ply, alpha, beta);
+      if (v > best) {
+        best = v;
+        bestMove = moves[k];
+        if (v > alpha) alpha = v;
+        if (alpha >= beta) break;
+      }
+    }
+    store(depth, best, best <= origAlpha ? UPPER : best >= beta ? LOWER : EXACT, bestMove);
+    return best;
+  }
+
+  /** The stored value if it settles this node at {@code depth}, else {@link #NO_VALUE}. */
+  private static int cutoff(long d, int depth, int alpha, int beta) {
+    if (((int) (d >>> 32) & 0xFF) < depth) return NO_VALUE;
+    int v = (int) d;
+    int bound = (int) (d >>> 40) & 3;
+    if (bound == EXACT || (bound == LOWER && v >= beta) || (bound == UPPER && v <= alpha)) return v;
+    return NO_VALUE;
+  }
+
+  /** Plays {@code move}, scores it from the mover's side and takes it back. */
+  private int searchMove(int move, int depth, int ply, int alpha, int beta) {
+    int cell = move >> 1;
+    boolean moverA = game.isPlayerATurn();
+    int before = moverA ? game.getScoreA() - game.getScoreB() : game.getScoreB() - game.getScoreA();
+    game.placeLetter(cell / size, cell % size, (move & 1) == 0 ? SosGameBase.Cell.S : SosGameBase.Cell.O);
+    try {
+      if (game.getMode() == GameMode.SIMPLE) {
+        if (game.getStatus() != SosGameBase.Status.IN_PROGRESS) {
+          return game.getStatus() == SosGameBase.Status.DRAW ? 0 : WIN;
+        }
+        return -search(depth - 1, ply + 1, -beta, -alpha);
+      }
+      int after = moverA ? game.getScoreA() - game.getScoreB() : game.getScoreB() - game.getScoreA();
+      int formed = after - before;
+      if (game.getStatus() != SosGameBase.Status.IN_PROGRESS) return formed;
+      if (game.isPlayerATurn() == moverA) {
+        // Extra turn: the mover is still to move in the child, so its value is not negated.
+        return formed + search(depth - 1, ply + 1, alpha - formed, beta - formed);
+      }
+      return formed - search(depth - 1, ply + 1, formed - beta, formed - alpha);
+    } finally {
+      game.unmakeMove();
+    }
+  }
+
+  /**
+   * Legal moves for this ply, best first: the preferred (table or previous iteration) move,
+   * then SOS-completing moves, then quiet moves, then moves that leave the opponent an SOS.
+   * The count is stored in the last slot.
+   */
+  private int[] generate(int ply, int preferred) {
+    int[] buf = moveBuf[ply];
+    if (buf == null) buf = moveBuf[ply] = new int[size * size * 2 + 1];
+    int front = 0, count = 0, conceding = buf.length - 1; // conceding moves fill down from the top
+    for (int k = game.getEmptyCount() - 1; k >= 0; k--) {
+      int cell = game.getEmptyCell(k);
+      for (int letter = 0; letter < 2; letter++) {
+        int m = cell << 1 | letter;
+        if (m == preferred) continue;
+        SosGameBase.Cell l = letter == 0 ? SosGameBase.Cell.S : SosGameBase.Cell.O;
+        if (threats.completes(cell, l) > 0) {
+          // Completing move: swap it in front of the quiet moves seen so far.
+          buf[count++] = buf[front];
+          buf[front++] = m;
+        } else if (threats.concedes(cell, l) > 0) {
+          buf[--conceding] = m;
+        } else {
+          buf[count++] = m;
+        }
+      }
+    }
+    int tail = buf.length - 1 - conceding;
+    System.arraycopy(buf, conceding, buf, count, tail);
+    count += tail;
+    if (preferred != NO_MOVE && isLegal(preferred)) {
+      System.arraycopy(buf, 0, buf, 1, count);
+      buf[0] = preferred;
+      count++;
+    }
+    buf[buf.length - 1] = count;
+    return buf;
+  }
+
+  private boolean isLegal(int move) {
+    int cell = move >> 1;
+    return cell < size * size && game.isCellEmpty(cell / size, cell % size);
+  }
+
+  private void store(int depth, int value, int bound, int bestMove) {
+    long entry = (value & 0xFFFFFFFFL) | (long) Math.min(depth, 0xFF) << 32 | (long) bound << 40;
+    if (shared != null) shared.put(game.getCanonicalHash(), entry);
+    long key = game.getHash();
+    int slot = (int) key & ttMask;
+    long old = ttData[slot];
+    boolean stale = ((int) (old >>> 42) & 0xFF) != age;
+    // Keep deeper results from the current search unless this is the same position.
+    if (ttKeys[slot] != key && !stale && ((int) (old >>> 32) & 0xFF) > depth) return;
+    ttKeys[slot] = key;
+    ttData[slot] = entry | (long) age << 42;
+    ttMoves[slot] = bestMove;
+  }
+
+  /** Follows the table's best moves from the root for up to {@code depth} plies. */
+  private List<Move> principalVariation(int depth) {
+    List<Move> pv = new ArrayList<>(depth);
+    while (pv.size() < depth && game.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+      long key = game.getHash();
+      int slot = (int) key & ttMask;
+      if (ttKeys[slot] != key || ttMoves[slot] == NO_MOVE || !isLegal(ttMoves[slot])) break;
+      Move m = toMove(ttMoves[slot]);
+      pv.add(m);
+      game.makeMove(m);
+    }
+    game.undo(pv.size());
+    return pv;
+  }
+
+  private int firstLegalMove() {
+    return game.getEmptyCount() == 0 ? NO_MOVE : game.getEmptyCell(0) << 1;
+  }
+
+  private Move toMove(int move) {
+    if (move == NO_MOVE) return null;
+    int cell = move >> 1;
+    return new Move(cell / size, cell % size, (move & 1) == 0 ? SosGameBase.Cell.S : SosGameBase.Cell.O);
+  }
+
+  /** Unwinds the search at a limit or an interrupt; shared and stackless since it carries no data. */
+  private static final class Timeout extends RuntimeException {
+    static final Timeout INSTANCE = new Timeout();
+    private Timeout() { super(null, null, false, false); }
+  }
+}
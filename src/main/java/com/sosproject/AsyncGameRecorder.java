@@ -0,0 +1,85 @@
+package com.sosproject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * SOSv1 text recorder that hands its lines to an {@link AsyncRecordingService} instead of
+ * writing and flushing them on the caller's thread. Each line is formatted when the call is made,
+ * so later moves cannot change what gets written. A write failure on the writer thread is thrown
+ * from the next call on this recorder.
+ */
+public class AsyncGameRecorder implements GameRecorder {
+  private static final String EOL = System.lineSeparator();
+
+  private final AsyncRecordingService service;
+  private final AsyncRecordingService.Sink sink;
+  private boolean open;
+
+  AsyncGameRecorder(AsyncRecordingService service, Path path) {
+    this.service = service;
+    this.sink = new AsyncRecordingService.Sink(path);
+  }
+
+  @Override
+  public void start(SosGameBase g, PlayerType a, PlayerType b) throws IOException {
+    open = true;
+    enqueue(TextGameRecorder.headerLine(g.getSize(), g.getMode(), a, b), false, null);
+  }
+
+  @Override
+  public void recordMove(int index, boolean isPlayerA, int row, int col, SosGameBase.Cell letter, SosGameBase g) throws IOException {
+    if (!open) return;
+    long t0 = EngineMetrics.start();
+    enqueue(TextGameRecorder.moveLine(index, isPlayerA, row, col, letter, g.getScoreA(), g.getScoreB(), g.getStatus()), false, null);
+    if (EngineMetrics.ENABLED) EngineMetrics.INSTANCE.recordMove.recordSince(t0);
+  }
+
+  @Override
+  public void recordMove(MoveEvent e) throws IOException {
+    if (!open) return;
+    long t0 = EngineMetrics.start();
+    enqueue(TextGameRecorder.moveLine(e.getMoveNumber(), e.isByPlayerA(), e.getRow(), e.getCol(), e.getLetter(),
+        e.getScoreA(), e.getScoreB(), e.getStatus()), false, null);
+    if (EngineMetrics.ENABLED) EngineMetrics.INSTANCE.recordMove.recordSince(t0);
+  }
+
+  /** Queues the result line and waits until the whole game is on disk. */
+  @Override
+  public void finish(SosGameBase g) throws IOException {
+    try {
+      finishAsync(g).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while finishing the recording", e);
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+    }
+  }
+
+  /** Queues the result line; the future completes once the whole game is on disk. */
+  public CompletableFuture<Void> finishAsync(SosGameBase g) throws IOException {
+    if (!open) return CompletableFuture.completedFuture(null);
+    open = false;
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    enqueue(TextGameRecorder.endLine(g.getStatus(), g.getScoreA(), g.getScoreB()), true, done);
+    return done;
+  }
+
+  /** Ends the file without a result line, as {@link TextGameRecorder#close} does; does not wait. */
+  @Override
+  public void close() throws IOException {
+    if (!open) return;
+    open = false;
+    service.submit(sink, null, true, null);
+  }
+
+  private void enqueue(String line, boolean last, CompletableFuture<Void> done) throws IOException {
+    IOException failure = sink.failure;
+    if (failure != null) throw failure;
+    service.submit(sink, (line + EOL).getBytes(StandardCharsets.UTF_8), last, done);
+  }
+}
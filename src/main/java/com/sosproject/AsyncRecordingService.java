@@ -0,0 +1,207 @@
+package com.sosproject;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * One background writer thread shared by many {@link AsyncGameRecorder}s. Recorders queue
+ * already-encoded records; the writer drains them in batches and flushes every file that changed
+ * at most once per durability interval (group commit) instead of once per move. Finishing a game
+ * flushes and forces its file before the finish completes.
+ *
+ * <p>The queue is bounded and enqueueing never blocks, since recorders are called from the Swing
+ * event thread. A record that finds the queue full fails its recorder instead: the file is closed
+ * as it stands and the next call on that recorder throws, while other recorders carry on. Records
+ * submitted after {@link #close} are refused; everything accepted before it is written out, and
+ * files still open when the writer exits are flushed and closed. The writer is a daemon thread,
+ * so close the service before the JVM exits or lose whatever it has not written yet.
+ */
+public final class AsyncRecordingService implements Closeable {
+  private static final int BATCH = 256;
+
+  private final BlockingQueue<Op> queue;
+  private final long flushIntervalNanos;
+  private final Thread writer;
+  /** Guards {@link #closed} so that no record is queued once the writer may have drained for the last time. */
+  private final Object lock = new Object();
+  private volatile boolean closed;
+
+  public AsyncRecordingService() { this(8192, 200L); }
+
+  public AsyncRecordingService(int queueCapacity, long flushIntervalMillis) {
+    if (queueCapacity < 1) throw new IllegalArgumentException("Queue capacity must be positive");
+    if (flushIntervalMillis < 0) throw new IllegalArgumentException("Flush interval cannot be negative");
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.flushIntervalNanos = flushIntervalMillis * 1_000_000L;
+    this.writer = new Thread(this::run, "sos-recording-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /** A recorder writing SOSv1 text to {@code path} through this service. */
+  public AsyncGameRecorder recorder(Path path) {
+    return new AsyncGameRecorder(this, path);
+  }
+
+  // ---- Called by recorders ----
+
+  /** Per-file state, touched only by the writer thread once opened. */
+  static final class Sink {
+    final Path path;
+    FileChannel channel;
+    OutputStream out;
+    volatile IOException failure;
+    Sink(Path path) { this.path = path; }
+  }
+
+  /** @param done completed once the record is on disk, or null if the caller does not wait */
+  void submit(Sink sink, byte[] data, boolean last, CompletableFuture<Void> done) throws IOException {
+    IOException failure;
+    synchronized (lock) {
+      if (closed) {
+        failure = new IOException("Recording service is closed");
+      } else if (queue.offer(new Op(sink, data, last, done))) {
+        return;
+      } else {
+        failure = new IOException("Recording queue is full; " + sink.path + " was abandoned");
+        if (sink.failure == null) sink.failure = failure;
+      }
+    }
+    if (done != null) done.completeExceptionally(failure);
+    throw failure;
+  }
+
+  private record Op(Sink sink, byte[] data, boolean last, CompletableFuture<Void> done) {}
+
+  /** Queued by {@link #close} so an idle writer notices at once instead of at its next poll. */
+  private static final Op WAKE = new Op(null, null, false, null);
+
+  // ---- Writer thread ----
+
+  private void run() {
+    List<Op> batch = new ArrayList<>(BATCH);
+    Set<Sink> dirty = new HashSet<>();
+    Set<Sink> open = new HashSet<>();
+    long nextFlush = System.nanoTime() + flushIntervalNanos;
+    try {
+      while (true) {
+        try {
+          Op first = dirty.isEmpty()
+              ? queue.poll(1, TimeUnit.SECONDS)
+              : queue.poll(Math.max(0L, nextFlush - System.nanoTime()), TimeUnit.NANOSECONDS);
+          if (first != null) {
+            batch.add(first);
+            queue.drainTo(batch, BATCH - 1);
+            for (Op op : batch) if (op != WAKE) apply(op, dirty, open);
+            batch.clear();
+          } else if (closed && queue.isEmpty()) {
+            return;
+          }
+        } catch (InterruptedException e) {
+          synchronized (lock) {
+            closed = true;
+          }
+          for (Op op; (op = queue.poll()) != null; ) if (op != WAKE) apply(op, dirty, open);
+          return;
+        }
+        long now = System.nanoTime();
+        if (now - nextFlush >= 0) {
+          flushAll(dirty);
+          open.removeIf(AsyncRecordingService::closeIfFailed);
+          nextFlush = now + flushIntervalNanos;
+        }
+      }
+    } finally {
+      // Nothing can be queued once closed is set, so this only catches records stranded by a
+      // writer that died; their callers must not wait forever.
+      IOException stopped = new IOException("Recording service stopped before the record was written");
+      for (Op op; (op = queue.poll()) != null; ) {
+        if (op.done() != null) op.done().completeExceptionally(stopped);
+      }
+      flushAll(dirty);
+      for (Sink s : open) closeQuietly(s);
+    }
+  }
+
+  private void apply(Op op, Set<Sink> dirty, Set<Sink> open) {
+    Sink s = op.sink();
+    try {
+      if (s.failure != null) throw s.failure;
+      if (s.out == null) {
+        s.channel = FileChannel.open(s.path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        s.out = new BufferedOutputStream(Channels.newOutputStream(s.channel));
+        open.add(s);
+      }
+      if (op.data() != null) {
+        long t0 = EngineMetrics.start();
+        s.out.write(op.data());
+        if (EngineMetrics.ENABLED) EngineMetrics.INSTANCE.wrote(t0, op.data().length);
+      }
+      if (op.last()) {
+        dirty.remove(s);
+        open.remove(s);
+        s.out.flush();
+        s.channel.force(false);
+        s.out.close();
+      } else {
+        dirty.add(s);
+      }
+      if (op.done() != null) op.done().complete(null);
+    } catch (IOException e) {
+      if (s.failure == null) s.failure = e;
+      dirty.remove(s);
+      open.remove(s);
+      closeQuietly(s);
+      if (op.done() != null) op.done().completeExceptionally(e);
+    }
+  }
+
+  private static void flushAll(Set<Sink> dirty) {
+    for (Sink s : dirty) {
+      try {
+        s.out.flush();
+      } catch (IOException e) {
+        if (s.failure == null) s.failure = e;
+        closeQuietly(s);
+      }
+    }
+    dirty.clear();
+  }
+
+  /** Closes a file whose recorder was failed from outside the writer, e.g. by a full queue. */
+  private static boolean closeIfFailed(Sink s) {
+    if (s.failure == null) return false;
+    closeQuietly(s);
+    return true;
+  }
+
+  private static void closeQuietly(Sink s) {
+    try {
+      if (s.out != null) s.out.close();
+    } catch (IOException ignored) {
+      // already failed; the first failure is the one reported
+    }
+  }
+
+  /** Stops accepting records, writes out everything queued and waits for the writer to exit. */
+  @Override public void close() throws IOException {
+    synchronized (lock) {
+      closed = true;
+      queue.offer(WAKE); // a full queue means the writer is busy and will see closed soon anyway
+    }
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while closing the recording service");
+    }
+  }
+}
@@ -0,0 +1,183 @@
+package com.sosproject;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Streams an SOSv2 recording (see {@link BinaryGameRecorder}) one move at a time. Moves are
+ * replayed on a game of the recorded size and mode as they are read, which supplies the mover
+ * and rejects illegal moves. Moves are read a checkpoint ahead and only handed out once their CRC
+ * has matched, so a truncated or torn file fails with an {@link IOException} before any damaged
+ * move is replayed; the footer is checked against its CRC and against the replay.
+ */
+public final class BinaryGameReader implements RecordingReader {
+  private final InputStream in;
+  private final CRC32 crc = new CRC32();
+  private final SosGameBase game;
+  private final PlayerType playerA, playerB;
+  /** Move codes up to the next checkpoint, already checked and not yet replayed. */
+  private final int[] block = new int[BinaryGameRecorder.CHECK_INTERVAL];
+  private int blockPos, blockLength;
+  private boolean footerRead;
+
+  private int row, col;
+  private SosGameBase.Cell letter;
+  private boolean moverA;
+  private boolean done, finished;
+  private SosGameBase.Status finalStatus;
+  private int finalScoreA, finalScoreB, finalMoves;
+
+  public BinaryGameReader(Path path) throws IOException {
+    this(new BufferedInputStream(Files.newInputStream(path)));
+  }
+
+  public BinaryGameReader(InputStream in) throws IOException {
+    this.in = in;
+    try {
+      for (byte m : BinaryGameRecorder.MAGIC) {
+        if (read() != (m & 0xFF)) throw new IOException("Invalid or empty SOSv2 recording");
+      }
+      int size = readVarint();
+      GameMode mode = GameMode.values()[readEnum(GameMode.values().length)];
+      playerA = PlayerType.values()[readEnum(PlayerType.values().length)];
+      playerB = PlayerType.values()[readEnum(PlayerType.values().length)];
+      game = SosGames.create(size, mode);
+    } catch (IOException | RuntimeException e) {
+      in.close();
+      throw e instanceof IOException io ? io : new IOException("Invalid SOSv2 header: " + e.getMessage(), e);
+    }
+  }
+
+  /** True if the file starts with the SOSv2 magic. */
+  public static boolean isBinary(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      byte[] head = in.readNBytes(BinaryGameRecorder.MAGIC.length);
+      return Arrays.equals(head, BinaryGameRecorder.MAGIC);
+    }
+  }
+
+  @Override public int getSize() { return game.getSize(); }
+  @Override public GameMode getMode() { return game.getMode(); }
+  @Override public PlayerType getPlayerA() { return playerA; }
+  @Override public PlayerType getPlayerB() { return playerB; }
+
+  @Override public boolean next() throws IOException {
+    if (done) return false;
+    long t0 = EngineMetrics.start();
+    if (blockPos == blockLength && (footerRead || !readBlock())) {
+      if (footerRead) checkResult();
+      done = true;
+      return false;
+    }
+    int code = block[blockPos++];
+    int n = game.getSize(), cell = code >>> 1;
+    if (cell >= n * n) throw new IOException("Move outside the board");
+    row = cell / n;
+    col = cell % n;
+    letter = (code & 1) == 0 ? SosGameBase.Cell.S : SosGameBase.Cell.O;
+    moverA = game.isPlayerATurn();
+    try {
+      game.placeLetter(row, col, letter);
+    } catch (RuntimeException e) {
+      throw new IOException("Illegal move " + game.getMoveCount() + " in recording: " + e.getMessage(), e);
+    }
+    if (EngineMetrics.ENABLED) EngineMetrics.INSTANCE.replayMove.recordSince(t0);
+    return true;
+  }
+
+  @Override public int row() { return row; }
+  @Override public int col() { return col; }
+  @Override public SosGameBase.Cell letter() { return letter; }
+  @Override public boolean isPlayerA() { return moverA; }
+  /** The game with every move read so far applied. */
+  public SosGameBase game() { return game; }
+
+  @Override public boolean isFinished() { return finished; }
+  public SosGameBase.Status getFinalStatus() { return finalStatus; }
+  public int getFinalScoreA() { return finalScoreA; }
+  public int getFinalScoreB() { return finalScoreB; }
+
+  /**
+   * Reads move codes up to and including the next checkpoint or the footer. False if the file
+   * ends cleanly after a checkpoint, as one closed without {@code finish} does.
+   */
+  private boolean readBlock() throws IOException {
+    blockPos = blockLength = 0;
+    while (true) {
+      int b = in.read();
+      if (b < 0) {
+        if (blockLength > 0) throw new EOFException("Truncated SOSv2 recording: moves after the last checkpoint");
+        return false;
+      }
+      crc.update(b);
+      int code = b < 0x80 ? b : readVarintFrom(b);
+      if (code == BinaryGameRecorder.END) {
+        readFooter();
+        return blockLength > 0;
+      } else if (code == BinaryGameRecorder.CHECKPOINT) {
+        checkCrc();
+        if (blockLength > 0) return true;
+      } else if (blockLength == block.length) {
+        throw new IOException("Missing SOSv2 checkpoint");
+      } else {
+        block[blockLength++] = code - BinaryGameRecorder.FIRST_MOVE;
+      }
+    }
+  }
+
+  private void readFooter() throws IOException {
+    finalStatus = SosGameBase.Status.values()[readEnum(SosGameBase.Status.values().length)];
+    finalScoreA = readVarint();
+    finalScoreB = readVarint();
+    finalMoves = readVarint();
+    checkCrc();
+    footerRead = true;
+  }
+
+  /** Once every move is replayed: the footer must describe the game they produce. */
+  private void checkResult() throws IOException {
+    if (finalMoves != game.getMoveCount() || finalStatus != game.getStatus()
+        || finalScoreA != game.getScoreA() || finalScoreB != game.getScoreB()) {
+      throw new IOException("SOSv2 result does not match the recorded moves");
+    }
+    finished = true;
+  }
+
+  private void checkCrc() throws IOException {
+    int expected = (int) crc.getValue();
+    int sum = 0;
+    for (int i = 0; i < 4; i++) sum = sum << 8 | read();
+    if (sum != expected) throw new IOException("SOSv2 checksum mismatch");
+  }
+
+  private int read() throws IOException {
+    int b = in.read();
+    if (b < 0) throw new EOFException("Truncated SOSv2 recording");
+    crc.update(b);
+    return b;
+  }
+
+  private int readEnum(int count) throws IOException {
+    int v = read();
+    if (v >= count) throw new IOException("Invalid SOSv2 value " + v);
+    return v;
+  }
+
+  private int readVarint() throws IOException {
+    return readVarintFrom(read());
+  }
+
+  private int readVarintFrom(int b) throws IOException {
+    int v = b & 0x7F;
+    for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+      if (shift > 28) throw new IOException("Malformed varint");
+      b = read();
+      v |= (b & 0x7F) << shift;
+    }
+    return v;
+  }
+
+  @Override public void close() throws IOException { in.close(); }
+}
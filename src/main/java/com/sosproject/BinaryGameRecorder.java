@@ -0,0 +1,112 @@
+package com.sosproject;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+/**
+ * Writes the compact SOSv2 recording format:
+ * <pre>
+ *   "SOSv2" size:varint mode:u8 playerA:u8 playerB:u8
+ *   move      varint(cell * 2 + (O ? 1 : 0) + 2), cell = row * size + col
+ *   1 crc32:u32   checkpoint, after every {@value #CHECK_INTERVAL} moves
+ *   0         end of moves
+ *   status:u8 scoreA:varint scoreB:varint moves:varint crc32:u32
+ * </pre>
+ * Movers, scores and status per move are not stored, since replaying the moves gives them back.
+ * Every CRC covers every byte before it. Moves are buffered rather than flushed one by one; a game
+ * closed without {@link #finish} ends with a checkpoint instead of an end marker and reads back as
+ * unfinished. The checkpoints bound how much a reader takes on trust, so a file cut off or torn
+ * anywhere fails to read rather than replaying a damaged tail.
+ */
+public class BinaryGameRecorder implements GameRecorder {
+  static final byte[] MAGIC = "SOSv2".getBytes(StandardCharsets.US_ASCII);
+  static final int CHECK_INTERVAL = 16;
+  static final int END = 0, CHECKPOINT = 1, FIRST_MOVE = 2;
+
+  private final Path path;
+  private OutputStream out;
+  private final CRC32 crc = new CRC32();
+  private int size;
+  private int moves;
+
+  public BinaryGameRecorder(Path path) { this.path = path; }
+
+  @Override
+  public void start(SosGameBase g, PlayerType a, PlayerType b) throws IOException {
+    out = new BufferedOutputStream(Files.newOutputStream(path));
+    crc.reset();
+    size = g.getSize();
+    moves = 0;
+    write(MAGIC);
+    writeVarint(size);
+    write(g.getMode().ordinal());
+    write(a.ordinal());
+    write(b.ordinal());
+  }
+
+  @Override
+  public void recordMove(int index, boolean isPlayerA, int row, int col, SosGameBase.Cell letter, SosGameBase g) throws IOException {
+    if (out == null) return;
+    long t0 = EngineMetrics.start();
+    writeVarint(((row * size + col) << 1 | (letter == SosGameBase.Cell.O ? 1 : 0)) + FIRST_MOVE);
+    if (++moves % CHECK_INTERVAL == 0) writeCheckpoint();
+    if (EngineMetrics.ENABLED) EngineMetrics.INSTANCE.recordMove.recordSince(t0);
+  }
+
+  @Override
+  public void finish(SosGameBase g) throws IOException {
+    if (out == null) return;
+    write(END);
+    write(g.getStatus().ordinal());
+    writeVarint(g.getScoreA());
+    writeVarint(g.getScoreB());
+    writeVarint(moves);
+    writeCrc();
+    out.close();
+    out = null;
+  }
+
+  @Override public void close() throws IOException {
+    if (out != null) {
+      try {
+        if (moves % CHECK_INTERVAL != 0) writeCheckpoint();
+      } finally {
+        out.close();
+        out = null;
+      }
+    }
+  }
+
+  private void writeCheckpoint() throws IOException {
+    write(CHECKPOINT);
+    writeCrc();
+  }
+
+  private void writeCrc() throws IOException {
+    int sum = (int) crc.getValue();
+    write(sum >>> 24);
+    write(sum >>> 16);
+    write(sum >>> 8);
+    write(sum);
+  }
+
+  private void write(int b) throws IOException {
+    out.write(b);
+    crc.update(b);
+  }
+
+  private void write(byte[] b) throws IOException {
+    out.write(b);
+    crc.update(b);
+  }
+
+  private void writeVarint(int v) throws IOException {
+    while ((v & ~0x7F) != 0) {
+      write((v & 0x7F) | 0x80);
+      v >>>= 7;
+    }
+    write(v);
+  }
+}
@@ -0,0 +1,29 @@
+package com.sosproject;
+
+/** Word-level helpers for row-major cell bitsets stored in {@code long[]}. */
+final class Bitboard {
+  private Bitboard() {}
+
+  static int words(int bits) { return (bits + 63) >>> 6; }
+
+  static boolean get(long[] b, int i) { return (b[i >>> 6] & (1L << i)) != 0; }
+  static void set(long[] b, int i) { b[i >>> 6] |= 1L << i; }
+  static void clear(long[] b, int i) { b[i >>> 6] &= ~(1L << i); }
+
+  /** dst[i] = src[i + k] for every bit i; bits shifted in from past the end are zero. */
+  static void shiftDown(long[] src, int k, long[] dst) {
+    int ws = k >>> 6, bs = k & 63, n = src.length;
+    for (int w = 0; w < n; w++) {
+      int lo = w + ws;
+      long v = lo < n ? src[lo] >>> bs : 0L;
+      if (bs != 0 && lo + 1 < n) v |= src[lo + 1] << (64 - bs);
+      dst[w] = v;
+    }
+  }
+
+  static int popCount(long[] b) {
+    int c = 0;
+    for (long w : b) c += Long.bitCount(w);
+    return c;
+  }
+}
@@ -0,0 +1,219 @@
+package com.sosproject;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+/**
+ * The board as one painted component instead of a grid of buttons. It keeps its own copy of the
+ * letters and SOS lines, and each change repaints only what it touched: one cell for a letter,
+ * the three cells under a line. Painting walks only the cells inside the clip and stamps letters
+ * and line strokes from images rendered once per cell size, so a move costs the same to draw on
+ * a 100x100 board as on a 3x3 one.
+ */
+final class BoardView extends JComponent {
+  /** Receives clicks on cells while input is enabled. */
+  interface CellListener {
+    void cellClicked(int row, int col);
+  }
+
+  private static final Color PLAYER_A = new Color(21, 101, 192);
+  private static final Color PLAYER_B = new Color(211, 47, 47);
+  private static final Color GRID = new Color(190, 190, 190);
+  private static final Color CELL = Color.WHITE;
+  // Line directions as (row step, col step); SosGameBase#sosLinesAt reports lines in this orientation.
+  private static final int[][] DIRS = { {1,0}, {0,1}, {1,1}, {1,-1} };
+
+  private final int size;
+  private final byte[] letters; // 0 empty, else 1 + (O ? 2 : 0) + (player B ? 1 : 0)
+  private final byte[] lines;   // [first cell * 4 + direction]: 0 none, 1 player A, 2 player B
+  private CellListener listener;
+  private boolean inputEnabled = true;
+
+  // Geometry for the current component size, and images rendered for its cell size.
+  private int cell, originX, originY;
+  private BufferedImage[] glyphs;  // [letter - 1]
+  private BufferedImage[] strokes; // [direction * 2 + (player B ? 1 : 0)]
+
+  BoardView(int size) {
+    this.size = size;
+    this.letters = new byte[size * size];
+    this.lines = new byte[size * size * 4];
+    setOpaque(true);
+    addMouseListener(new MouseAdapter() {
+      @Override public void mouseClicked(MouseEvent e) {
+        if (!inputEnabled || listener == null) return;
+        layoutCells();
+        int r = Math.floorDiv(e.getY() - originY, cell), c = Math.floorDiv(e.getX() - originX, cell);
+        if (r >= 0 && r < size && c >= 0 && c < size) listener.cellClicked(r, c);
+      }
+    });
+  }
+
+  void setCellListener(CellListener listener) { this.listener = listener; }
+
+  /** Gates clicks only; unlike {@link #setEnabled}, it never repaints the board. */
+  void setInputEnabled(boolean enabled) { this.inputEnabled = enabled; }
+
+  /** Shows a letter; returns false, repainting nothing, if the cell already shows it. */
+  boolean setCell(int row, int col, SosGameBase.Cell letter, boolean isPlayerA) {
+    int i = row * size + col;
+    byte v = (byte) (1 + (letter == SosGameBase.Cell.O ? 2 : 0) + (isPlayerA ? 0 : 1));
+    if (letters[i] == v) return false;
+    letters[i] = v;
+    repaintCells(row, col, 1, 1);
+    return true;
+  }
+
+  /** Empties a cell and drops every line through it; returns false if it was already empty. */
+  boolean clearCell(int row, int col) {
+    int i = row * size + col;
+    if (letters[i] == 0) return false;
+    letters[i] = 0;
+    repaintCells(row, col, 1, 1);
+    for (int d = 0; d < DIRS.length; d++) {
+      for (int j = 0; j < 3; j++) {
+        int r = row - j * DIRS[d][0], c = col - j * DIRS[d][1];
+        if (!fits(r, c, d)) continue;
+        int k = (r * size + c) * 4 + d;
+        if (lines[k] != 0) {
+          lines[k] = 0;
+          repaintLine(r, c, d);
+        }
+      }
+    }
+    return true;
+  }
+
+  /** Draws the SOS from cell {@code first} to cell {@code last}, as given by {@link SosGameBase#sosLinesAt}. */
+  void addLine(int first, int last, boolean isPlayerA) {
+    int r = first / size, c = first % size;
+    int dr = (last / size - r) / 2, dc = (last % size - c) / 2;
+    int d = 0;
+    while (DIRS[d][0] != dr || DIRS[d][1] != dc) d++;
+    byte owner = (byte) (isPlayerA ? 1 : 2);
+    int k = first * 4 + d;
+    if (lines[k] == owner) return;
+    lines[k] = owner;
+    repaintLine(r, c, d);
+  }
+
+  @Override
+  public Dimension getPreferredSize() { return new Dimension(480, 480); }
+
+  @Override
+  protected void paintComponent(Graphics g0) {
+    Graphics2D g = (Graphics2D) g0;
+    layoutCells();
+    Rectangle clip = g.getClipBounds();
+    if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+    g.setColor(GRID);
+    g.fillRect(clip.x, clip.y, clip.width, clip.height);
+    int r0 = Math.max(0, Math.floorDiv(clip.y - originY, cell));
+    int r1 = Math.min(size - 1, Math.floorDiv(clip.y + clip.height - 1 - originY, cell));
+    int c0 = Math.max(0, Math.floorDiv(clip.x - originX, cell));
+    int c1 = Math.min(size - 1, Math.floorDiv(clip.x + clip.width - 1 - originX, cell));
+    if (r0 > r1 || c0 > c1) return;
+
+    int gap = cell >= 6 ? 1 : 0; // grid lines are the background showing between cells
+    g.setColor(CELL);
+    for (int r = r0; r <= r1; r++) {
+      for (int c = c0; c <= c1; c++) g.fillRect(originX + c * cell + gap, originY + r * cell + gap, cell - gap, cell - gap);
+    }
+    BufferedImage[] glyph = glyphs();
+    for (int r = r0; r <= r1; r++) {
+      for (int c = c0; c <= c1; c++) {
+        int v = letters[r * size + c];
+        if (v != 0) g.drawImage(glyph[v - 1], originX + c * cell, originY + r * cell, null);
+      }
+    }
+    // A line can reach into the clip from up to two cells above or to either side.
+    BufferedImage[] stroke = strokes();
+    for (int r = Math.max(0, r0 - 2); r <= r1; r++) {
+      for (int c = Math.max(0, c0 - 2); c <= Math.min(size - 1, c1 + 2); c++) {
+        int base = (r * size + c) * 4;
+        for (int d = 0; d < DIRS.length; d++) {
+          int owner = lines[base + d];
+          if (owner == 0) continue;
+          int left = DIRS[d][1] < 0 ? c - 2 : c;
+          g.drawImage(stroke[d * 2 + owner - 1], originX + left * cell, originY + r * cell, null);
+        }
+      }
+    }
+  }
+
+  /** Whether a line from (r, c) in direction {@code d} stays on the board. */
+  private boolean fits(int r, int c, int d) {
+    int r2 = r + 2 * DIRS[d][0], c2 = c + 2 * DIRS[d][1];
+    return r >= 0 && c >= 0 && c < size && r2 < size && c2 >= 0 && c2 < size;
+  }
+
+  private void repaintCells(int row, int col, int rows, int cols) {
+    layoutCells();
+    repaint(originX + col * cell, originY + row * cell, cols * cell, rows * cell);
+  }
+
+  private void repaintLine(int r, int c, int d) {
+    int dr = DIRS[d][0], dc = DIRS[d][1];
+    repaintCells(r, dc < 0 ? c - 2 : c, dr == 0 ? 1 : 3, dc == 0 ? 1 : 3);
+  }
+
+  /** Fits square cells to the current size; a new cell size drops the cached images. */
+  private void layoutCells() {
+    int w = getWidth(), h = getHeight();
+    int c = Math.max(1, Math.min(w, h) / size);
+    if (c != cell) {
+      cell = c;
+      glyphs = null;
+      strokes = null;
+    }
+    originX = (w - cell * size) / 2;
+    originY = (h - cell * size) / 2;
+  }
+
+  private BufferedImage[] glyphs() {
+    if (glyphs != null) return glyphs;
+    glyphs = new BufferedImage[4];
+    Font font = new Font(Font.SANS_SERIF, Font.BOLD, Math.max(1, cell * 3 / 5));
+    for (int v = 0; v < 4; v++) {
+      BufferedImage img = new BufferedImage(cell, cell, BufferedImage.TYPE_INT_ARGB);
+      Graphics2D g = img.createGraphics();
+      g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+      g.setFont(font);
+      g.setColor((v & 1) == 0 ? PLAYER_A : PLAYER_B);
+      String s = v < 2 ? "S" : "O";
+      FontMetrics fm = g.getFontMetrics();
+      g.drawString(s, (cell - fm.stringWidth(s)) / 2, (cell - fm.getHeight()) / 2 + fm.getAscent());
+      g.dispose();
+      glyphs[v] = img;
+    }
+    return glyphs;
+  }
+
+  private BufferedImage[] strokes() {
+    if (strokes != null) return strokes;
+    strokes = new BufferedImage[DIRS.length * 2];
+    float width = Math.max(1f, cell / 8f);
+    for (int d = 0; d < DIRS.length; d++) {
+      int dr = DIRS[d][0], dc = DIRS[d][1];
+      int w = (dc == 0 ? 1 : 3) * cell, h = (dr == 0 ? 1 : 3) * cell;
+      // Centre of the first cell to centre of the last, within the line's bounding box.
+      int x1 = (dc < 0 ? 2 : 0) * cell + cell / 2, y1 = cell / 2;
+      int x2 = x1 + 2 * dc * cell, y2 = y1 + 2 * dr * cell;
+      for (int p = 0; p < 2; p++) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Color base = p == 0 ? PLAYER_A : PLAYER_B;
+        g.setColor(new Color(base.getRed(), base.getGreen(), base.getBlue(), 150));
+        g.setStroke(new BasicStroke(width, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        g.drawLine(x1, y1, x2, y2);
+        g.dispose();
+        strokes[d * 2 + p] = img;
+      }
+    }
+    return strokes;
+  }
+}
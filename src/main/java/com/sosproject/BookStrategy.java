@@ -0,0 +1,52 @@
+package com.sosproject;
+
+import java.util.function.Consumer;
+
+/** Plays from an {@link OpeningBook} while it has a move, then leaves the game to the wrapped strategy. */
+public class BookStrategy implements Strategy {
+  private final OpeningBook book;
+  private final Strategy fallback;
+  private final int minGames;
+
+  public BookStrategy(OpeningBook book, Strategy fallback) { this(book, fallback, 10); }
+
+  /** @param minGames fewest self-play games behind a move before it is trusted */
+  public BookStrategy(OpeningBook book, Strategy fallback, int minGames) {
+    if (book == null || fallback == null) throw new IllegalArgumentException("Book and fallback are required");
+    if (minGames < 1) throw new IllegalArgumentException("Need at least one game per move");
+    this.book = book;
+    this.fallback = fallback;
+    this.minGames = minGames;
+  }
+
+  @Override
+  public Move choose(SosGameBase game) {
+    Move m = bookMove(game);
+    return m != null ? m : fallback.choose(game);
+  }
+
+  /** Book moves are instant; the limits and progress go to the fallback when it searches. */
+  @Override
+  public Move choose(SosGameBase game, SearchLimits limits, Consumer<SearchProgress> progress) {
+    Move m = bookMove(game);
+    return m != null ? m : fallback.choose(game, limits, progress);
+  }
+
+  private Move bookMove(SosGameBase game) {
+    if (game.getStatus() != SosGameBase.Status.IN_PROGRESS) return null;
+    int move = book.bestMove(game, minGames);
+    if (move >= 0) {
+      int n = game.getSize(), cell = move >>> 1;
+      // A hash collision could name a filled cell; only trust the book for legal moves.
+      if (game.isCellEmpty(cell / n, cell % n)) {
+        return new Move(cell / n, cell % n, (move & 1) == 0 ? SosGameBase.Cell.S : SosGameBase.Cell.O);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void close() {
+    fallback.close();
+  }
+}
@@ -0,0 +1,176 @@
+package com.sosproject;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Runs a strategy's moves off the event thread with a per-move time budget, cancellation and
+ * pondering. Searches run one at a time on a single daemon thread, since strategies keep state
+ * between moves. The budget is a deadline set when the move is requested, so time spent waiting
+ * for the thread counts against it. The search is also interrupted at the deadline, for
+ * strategies that ignore limits, and when cancelled.
+ *
+ * <p>While the human thinks, the player ponders. It searches the position after the reply it
+ * expects, the second move of the principal variation its last search reported. If the human
+ * plays that reply, the running search becomes the search for the move and is stopped one budget
+ * later, so the time spent pondering is added to the budget. Otherwise the ponder search is
+ * cancelled. A transposition table keeps what it learned either way.
+ *
+ * <p>Not thread-safe: call it from one thread, such as the event dispatch thread.
+ */
+public final class ComputerPlayer implements Closeable {
+  /** Bounds pondering, so a human who walks away does not keep a core busy forever. */
+  private static final long PONDER_MILLIS = 60_000;
+
+  private final Strategy strategy;
+  private final long budgetNanos;
+  private final boolean ponder;
+  private final ExecutorService searcher = Executors.newSingleThreadExecutor(daemon("sos-search"));
+  private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(daemon("sos-search-timer"));
+  private Search current;
+  private Search lastMove;
+  private long ponderHits;
+  private long ponderMisses;
+
+  /** One search, its result, and what is needed to stop it from another thread. */
+  private static final class Search {
+    final long hash;
+    final int moves;
+    boolean pondering;
+    final CompletableFuture<Move> result = new CompletableFuture<>();
+    private Thread runner;
+    private boolean stopRequested;
+    ScheduledFuture<?> stop;
+    // The reply expected after this search's move, for pondering; written before result completes.
+    List<Move> pv = List.of();
+    long replyBase;
+    Move reply;
+
+    Search(SosGameBase position, boolean pondering) {
+      this.hash = position.getHash();
+      this.moves = position.getMoveCount();
+      this.pondering = pondering;
+    }
+
+    /** Ends the search early; the strategy returns its best move so far. */
+    synchronized void stop() {
+      stopRequested = true;
+      if (runner != null) runner.interrupt();
+    }
+
+    synchronized void enter() {
+      runner = Thread.currentThread();
+      if (stopRequested) runner.interrupt();
+    }
+
+    synchronized void exit() {
+      runner = null;
+      Thread.interrupted(); // a stop that came too late must not reach the next search
+    }
+  }
+
+  /** @param strategy owned by the player from now on, and closed with it */
+  public ComputerPlayer(Strategy strategy, long moveBudgetMillis, boolean ponder) {
+    if (strategy == null) throw new IllegalArgumentException("Strategy is required");
+    if (moveBudgetMillis <= 0) throw new IllegalArgumentException("Budget must be positive");
+    this.strategy = strategy;
+    this.budgetNanos = moveBudgetMillis * 1_000_000L;
+    this.ponder = ponder;
+  }
+
+  /**
+   * Searches the game's current position within the budget. The future completes with the move
+   * (null if the game is over) or is cancelled by {@link #cancel()}.
+   */
+  public CompletableFuture<Move> move(SosGameBase game) {
+    Search s = current;
+    if (s != null && s.pondering && s.hash == game.getHash() && s.moves == game.getMoveCount()) {
+      // Ponder hit: the search already under way is this move's search.
+      ponderHits++;
+      s.pondering = false;
+      s.stop = timer.schedule(s::stop, budgetNanos, TimeUnit.NANOSECONDS);
+      lastMove = s;
+      return s.result;
+    }
+    if (s != null && s.pondering) ponderMisses++;
+    cancel();
+    Search search = start(game.copy(), new SearchLimits(System.nanoTime() + budgetNanos, Long.MAX_VALUE), false);
+    search.stop = timer.schedule(search::stop, budgetNanos, TimeUnit.NANOSECONDS);
+    lastMove = search;
+    return search.result;
+  }
+
+  /**
+   * Starts pondering on the reply expected in {@code game}, which should be the position right
+   * after this player's last move with the human to play. Does nothing without a prediction.
+   */
+  public void ponder(SosGameBase game) {
+    Search last = lastMove;
+    if (!ponder || last == null || !last.result.isDone() || last.result.isCompletedExceptionally()) return;
+    if (last.reply == null || last.replyBase != game.getHash() || game.getStatus() != SosGameBase.Status.IN_PROGRESS) return;
+    SosGameBase next = game.copy();
+    next.makeMove(last.reply);
+    if (next.getStatus() != SosGameBase.Status.IN_PROGRESS) return;
+    cancel();
+    start(next, SearchLimits.ofMillis(PONDER_MILLIS), true);
+  }
+
+  /** The reply the last move's search expects, or null if it has none or is still running. */
+  public Move getPredictedReply() {
+    Search last = lastMove;
+    return last == null || !last.result.isDone() ? null : last.reply;
+  }
+
+  /** Abandons the running search, if any; its future is cancelled. */
+  public void cancel() {
+    Search s = current;
+    current = null;
+    if (s == null) return;
+    s.result.cancel(false);
+    if (s.stop != null) s.stop.cancel(false);
+    s.stop();
+  }
+
+  public long getPonderHits() { return ponderHits; }
+  public long getPonderMisses() { return ponderMisses; }
+
+  private Search start(SosGameBase position, SearchLimits limits, boolean pondering) {
+    Search s = new Search(position, pondering);
+    current = s;
+    searcher.execute(() -> {
+      if (s.result.isDone()) return; // cancelled while queued
+      s.enter();
+      try {
+        Move m = strategy.choose(position, limits, p -> s.pv = p.pv());
+        if (ponder && m != null && s.pv.size() > 1 && s.pv.get(0).equals(m)) {
+          position.makeMove(m);
+          s.replyBase = position.getHash();
+          s.reply = s.pv.get(1);
+        }
+        s.result.complete(m);
+      } catch (RuntimeException e) {
+        s.result.completeExceptionally(e);
+      } finally {
+        s.exit();
+      }
+    });
+    return s;
+  }
+
+  private static ThreadFactory daemon(String name) {
+    return r -> {
+      Thread t = new Thread(r, name);
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+  @Override
+  public void close() {
+    cancel();
+    searcher.shutdownNow();
+    timer.shutdownNow();
+    strategy.close();
+  }
+}
@@ -0,0 +1,161 @@
+package com.sosproject;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and counters for the engine's hot paths: placing letters and detecting SOS
+ * lines, searches, and recording and replaying games. Off unless the JVM starts with
+ * {@code -Dsos.metrics=true}; {@code -Dsos.metrics.dump=N} also prints {@link #report()} to
+ * standard error every N seconds. When on, the metrics are registered as MBeans under
+ * {@code com.sosproject:type=EngineMetrics}, one per histogram plus one for the totals.
+ *
+ * <p>Every probe is guarded by {@link #ENABLED}, a constant once the class is loaded, so when
+ * metrics are off the JIT drops the probes and they cost nothing. When on, a probe is two clock
+ * reads and lock-free updates: {@link LatencyHistogram} buckets and {@link LongAdder}s. Search
+ * allocation is estimated from the searching thread's allocation counter, where the JVM keeps
+ * one; MCTS workers allocate nothing while they search, so the caller's count covers it.
+ */
+public final class EngineMetrics implements EngineMetricsMBean {
+  public static final boolean ENABLED = Boolean.getBoolean("sos.metrics");
+
+  private static final String DOMAIN = "com.sosproject:type=EngineMetrics";
+
+  /** The process-wide metrics, registered with the platform MBean server; null unless enabled. */
+  static final EngineMetrics INSTANCE = ENABLED ? startGlobal() : null;
+
+  final LatencyHistogram placeLetter = new LatencyHistogram("placeLetter");
+  final LatencyHistogram countSos = new LatencyHistogram("countSOSAt");
+  final LatencyHistogram search = new LatencyHistogram("search");
+  final LatencyHistogram searchAllocated = new LatencyHistogram("searchAllocated", "bytes");
+  final LatencyHistogram recordMove = new LatencyHistogram("recordMove");
+  final LatencyHistogram recordWrite = new LatencyHistogram("recordWrite");
+  final LatencyHistogram replayMove = new LatencyHistogram("replayMove");
+  final LongAdder sosLines = new LongAdder();
+  final LongAdder nodes = new LongAdder();
+  final LongAdder bytesWritten = new LongAdder();
+
+  private List<LatencyHistogram> histograms() {
+    return List.of(placeLetter, countSos, search, searchAllocated, recordMove, recordWrite, replayMove);
+  }
+
+  /** A clock reading to time a probe from, or 0 when metrics are off. */
+  static long start() { return ENABLED ? System.nanoTime() : 0L; }
+
+  /** Bytes the current thread has allocated so far, or -1 where the JVM does not count them. */
+  static long allocatedBytes() {
+    com.sun.management.ThreadMXBean counter = Allocations.COUNTER;
+    return counter == null ? -1L : counter.getCurrentThreadAllocatedBytes();
+  }
+
+  /**
+   * Looked up on the first {@link #allocatedBytes()}, which only runs with metrics on, so the
+   * first move of a game without metrics does not start the management machinery.
+   */
+  private static final class Allocations {
+    static final com.sun.management.ThreadMXBean COUNTER =
+        ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+            && t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled() ? t : null;
+  }
+
+  void countedSos(long startNanos, int lines) {
+    countSos.recordSince(startNanos);
+    if (lines != 0) sosLines.add(lines);
+  }
+
+  /** @param allocatedBefore {@link #allocatedBytes()} when the search started */
+  void searched(long startNanos, long searchNodes, long allocatedBefore) {
+    search.recordSince(startNanos);
+    nodes.add(searchNodes);
+    if (allocatedBefore >= 0) searchAllocated.record(allocatedBytes() - allocatedBefore);
+  }
+
+  void wrote(long startNanos, int bytes) {
+    recordWrite.recordSince(startNanos);
+    bytesWritten.add(bytes);
+  }
+
+  @Override public long getPlacements() { return placeLetter.getCount(); }
+  @Override public long getSosChecks() { return countSos.getCount(); }
+  @Override public long getSosLinesFound() { return sosLines.sum(); }
+  @Override public long getSearches() { return search.getCount(); }
+  @Override public long getNodesSearched() { return nodes.sum(); }
+  @Override public long getMovesRecorded() { return recordMove.getCount(); }
+  @Override public long getBytesWritten() { return bytesWritten.sum(); }
+  @Override public long getMovesReplayed() { return replayMove.getCount(); }
+
+  @Override public String report() {
+    StringBuilder b = new StringBuilder();
+    for (LatencyHistogram h : histograms()) b.append(h).append('\n');
+    b.append(String.format("sosLinesFound=%d nodesSearched=%d bytesWritten=%d%n",
+        getSosLinesFound(), getNodesSearched(), getBytesWritten()));
+    return b.toString();
+  }
+
+  @Override public void reset() {
+    for (LatencyHistogram h : histograms()) h.reset();
+    sosLines.reset();
+    nodes.reset();
+    bytesWritten.reset();
+  }
+
+  void register(MBeanServer server) throws JMException {
+    server.registerMBean(this, new ObjectName(DOMAIN));
+    for (LatencyHistogram h : histograms()) server.registerMBean(h, new ObjectName(DOMAIN + ",name=" + h.getName()));
+  }
+
+  void unregister(MBeanServer server) throws JMException {
+    server.unregisterMBean(new ObjectName(DOMAIN));
+    for (LatencyHistogram h : histograms()) server.unregisterMBean(new ObjectName(DOMAIN + ",name=" + h.getName()));
+  }
+
+  /**
+   * Prints the report every {@code periodMillis}, headed by the placement, search-node and
+   * write rates since the previous one, until the returned handle is closed.
+   */
+  Closeable startDump(PrintStream out, long periodMillis) {
+    if (periodMillis <= 0) throw new IllegalArgumentException("Period must be positive");
+    ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "sos-metrics-dump");
+      t.setDaemon(true);
+      return t;
+    });
+    long[] last = { System.nanoTime(), getPlacements(), getNodesSearched(), getBytesWritten() };
+    timer.scheduleAtFixedRate(() -> {
+      long now = System.nanoTime(), placements = getPlacements(), searched = getNodesSearched(), written = getBytesWritten();
+      double secs = (now - last[0]) / 1e9;
+      out.printf("-- sos metrics %s: %.0f placements/s, %.0f nodes/s, %.0f bytes written/s%n%s",
+          LocalTime.now().truncatedTo(ChronoUnit.SECONDS), (placements - last[1]) / secs,
+          (searched - last[2]) / secs, (written - last[3]) / secs, report());
+      out.flush();
+      last[0] = now;
+      last[1] = placements;
+      last[2] = searched;
+      last[3] = written;
+    }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    return timer::shutdownNow;
+  }
+
+  private static EngineMetrics startGlobal() {
+    EngineMetrics m = new EngineMetrics();
+    try {
+      m.register(ManagementFactory.getPlatformMBeanServer());
+    } catch (JMException e) {
+      System.err.println("sos metrics: JMX registration failed: " + e);
+    }
+    long seconds = Long.getLong("sos.metrics.dump", 0L);
+    if (seconds > 0) m.startDump(System.err, seconds * 1000);
+    return m;
+  }
+}
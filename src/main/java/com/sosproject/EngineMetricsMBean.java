@@ -0,0 +1,16 @@
+package com.sosproject;
+
+/** JMX view of {@link EngineMetrics}: running totals, from which monitoring tools derive rates. */
+public interface EngineMetricsMBean {
+  long getPlacements();
+  long getSosChecks();
+  long getSosLinesFound();
+  long getSearches();
+  long getNodesSearched();
+  long getMovesRecorded();
+  long getBytesWritten();
+  long getMovesReplayed();
+  /** The text the periodic dump prints. */
+  String report();
+  void reset();
+}
@@ -0,0 +1,83 @@
+package com.sosproject;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, lock-free map from position hash to a 64-bit evaluation, meant to be shared by
+ * every strategy thread and game. Key it on {@link SosGameBase#getCanonicalHash()} so symmetric
+ * positions share one entry.
+ *
+ * <p>Each slot holds {@code key ^ data} and {@code data}; a reader recomputes the key from the
+ * pair, so a slot overwritten halfway through a read just looks like a miss. Writes always
+ * replace, and replacing a different key counts as an eviction.
+ */
+public final class EvaluationCache {
+  /** Returned by {@link #get} when the key is not cached; never stored. */
+  public static final long MISS = Long.MIN_VALUE;
+
+  private final AtomicLongArray keys;
+  private final AtomicLongArray data;
+  private final int mask;
+  private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+  /** @param entries capacity, rounded up to a power of two */
+  public EvaluationCache(int entries) {
+    if (entries < 1 || entries > 1 << 28) throw new IllegalArgumentException("Cache size must be 1..2^28");
+    int cap = 1;
+    while (cap < entries) cap <<= 1;
+    keys = new AtomicLongArray(cap);
+    data = new AtomicLongArray(cap);
+    mask = cap - 1;
+  }
+
+  public int capacity() { return mask + 1; }
+
+  /** The data stored for {@code key}, or {@link #MISS}. */
+  public long get(long key) {
+    int slot = slot(key);
+    long d = data.getOpaque(slot);
+    if ((keys.getOpaque(slot) ^ d) == key && d != 0) {
+      hits.increment();
+      return d;
+    }
+    misses.increment();
+    return MISS;
+  }
+
+  /** Stores {@code value} for {@code key}; {@code value} must not be 0 or {@link #MISS}. */
+  public void put(long key, long value) {
+    if (value == 0 || value == MISS) throw new IllegalArgumentException("0 and MISS cannot be stored");
+    int slot = slot(key);
+    long old = data.getOpaque(slot);
+    if (old != 0 && (keys.getOpaque(slot) ^ old) != key) evictions.increment();
+    // Opaque writes are not ordered against each other, so a reader may see either half new and
+    // the other old. The key ^ data check is what makes that safe: a mixed pair fails it.
+    data.setOpaque(slot, value);
+    keys.setOpaque(slot, key ^ value);
+  }
+
+  public long getHits() { return hits.sum(); }
+  public long getMisses() { return misses.sum(); }
+  public long getEvictions() { return evictions.sum(); }
+
+  public double hitRate() {
+    long h = hits.sum(), total = h + misses.sum();
+    return total == 0 ? 0.0 : (double) h / total;
+  }
+
+  /** Empties the cache and its counters; not atomic with respect to concurrent use. */
+  public void clear() {
+    for (int i = 0; i <= mask; i++) {
+      data.setOpaque(i, 0L);
+      keys.setOpaque(i, 0L);
+    }
+    hits.reset();
+    misses.reset();
+    evictions.reset();
+  }
+
+  private int slot(long key) {
+    return (int) (key ^ key >>> 32) & mask;
+  }
+}
@@ -0,0 +1,149 @@
+package com.sosproject;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Random access to the games in an archive written by {@link GameArchiveWriter}. Opening reads
+ * only the fixed-size footer; looking up a game reads its index slot and header, and a position
+ * is rebuilt from the nearest keyframe plus the few moves after it. No lookup scans other games
+ * or earlier moves.
+ */
+public final class GameArchive implements Closeable {
+  /** Header fields of one archived game. */
+  public record Entry(int size, GameMode mode, PlayerType playerA, PlayerType playerB,
+                      int moveCount, SosGameBase.Status status, int scoreA, int scoreB) {}
+
+  private final FileChannel channel;
+  private final long games;
+  private final long indexStart;
+
+  public GameArchive(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      long length = channel.size();
+      if (length < GameArchiveWriter.MAGIC.length + GameArchiveWriter.FOOTER) throw new IOException("Not an SOS archive");
+      ByteBuffer footer = read(channel, length - GameArchiveWriter.FOOTER, GameArchiveWriter.FOOTER);
+      games = footer.getLong();
+      byte[] trailer = new byte[GameArchiveWriter.TRAILER.length];
+      footer.get(trailer);
+      if (!Arrays.equals(trailer, GameArchiveWriter.TRAILER)) throw new IOException("Not an SOS archive, or its index was not written");
+      indexStart = length - GameArchiveWriter.FOOTER - games * 8;
+      if (games < 0 || indexStart < GameArchiveWriter.MAGIC.length) throw new IOException("Corrupt SOS archive index");
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  public long getGameCount() { return games; }
+
+  public Entry entry(long game) throws IOException {
+    return header(offset(game)).entry;
+  }
+
+  /** Move {@code k} (0-based) of a game. */
+  public Move move(long game, int k) throws IOException {
+    Header h = header(offset(game));
+    if (k < 0 || k >= h.entry.moveCount()) throw new IndexOutOfBoundsException("Game " + game + " has no move " + k);
+    ByteBuffer b = read(channel, h.movesAt + (long) k * h.width, h.width);
+    return toMove(h, h.width == 2 ? b.getShort() & 0xFFFF : b.getInt());
+  }
+
+  /**
+   * Game {@code game} after its first {@code ply} moves. The result can be played on, and can be
+   * undone back to the keyframe it was rebuilt from.
+   */
+  public SosGameBase position(long game, int ply) throws IOException {
+    Header h = header(offset(game));
+    Entry e = h.entry;
+    if (ply < 0 || ply > e.moveCount()) throw new IndexOutOfBoundsException("Game " + game + " has no ply " + ply);
+    int key = ply / h.every;
+    SosGameBase g;
+    if (key == 0) {
+      g = SosGames.create(e.size(), e.mode());
+    } else {
+      int words = Bitboard.words(e.size() * e.size());
+      int bytes = GameArchiveWriter.snapshotBytes(e.size());
+      ByteBuffer b = read(channel, h.movesAt + (long) e.moveCount() * h.width + (long) (key - 1) * bytes, bytes);
+      long[] s = new long[words], o = new long[words];
+      for (int w = 0; w < words; w++) s[w] = b.getLong();
+      for (int w = 0; w < words; w++) o[w] = b.getLong();
+      int scoreA = b.getInt(), scoreB = b.getInt();
+      boolean turnA = b.get() != 0;
+      SosGameBase.Status status = enumAt(SosGameBase.Status.values(), b.get());
+      try {
+        g = SosGameBase.restore(new SosGameBase.Snapshot(e.size(), e.mode(), s, o, scoreA, scoreB, turnA, status, key * h.every));
+      } catch (IllegalArgumentException ex) {
+        throw new IOException("Corrupt keyframe in game " + game + ": " + ex.getMessage(), ex);
+      }
+    }
+    int from = g.getMoveCount();
+    if (ply > from) {
+      ByteBuffer b = read(channel, h.movesAt + (long) from * h.width, (ply - from) * h.width);
+      for (int k = from; k < ply; k++) {
+        Move m = toMove(h, h.width == 2 ? b.getShort() & 0xFFFF : b.getInt());
+        try {
+          g.makeMove(m);
+        } catch (RuntimeException ex) {
+          throw new IOException("Illegal move " + k + " in game " + game + ": " + ex.getMessage(), ex);
+        }
+      }
+    }
+    return g;
+  }
+
+  private record Header(Entry entry, int width, int every, long movesAt) {}
+
+  private long offset(long game) throws IOException {
+    if (game < 0 || game >= games) throw new IndexOutOfBoundsException("Archive has no game " + game);
+    long offset = read(channel, indexStart + game * 8, 8).getLong();
+    if (offset < GameArchiveWriter.MAGIC.length || offset + GameArchiveWriter.GAME_HEADER > indexStart) {
+      throw new IOException("Corrupt index entry for game " + game);
+    }
+    return offset;
+  }
+
+  private Header header(long offset) throws IOException {
+    ByteBuffer b = read(channel, offset, GameArchiveWriter.GAME_HEADER);
+    int size = b.getShort() & 0xFFFF;
+    GameMode mode = enumAt(GameMode.values(), b.get());
+    PlayerType a = enumAt(PlayerType.values(), b.get());
+    PlayerType pb = enumAt(PlayerType.values(), b.get());
+    SosGameBase.Status status = enumAt(SosGameBase.Status.values(), b.get());
+    int width = b.get();
+    b.get();
+    int moves = b.getInt(), scoreA = b.getInt(), scoreB = b.getInt(), every = b.getInt();
+    if (size < SosGameBase.MIN_SIZE || size > SosGameBase.MAX_SIZE || (width != 2 && width != 4)
+        || moves < 0 || moves > size * size || every < 1) {
+      throw new IOException("Corrupt game header at byte " + offset);
+    }
+    return new Header(new Entry(size, mode, a, pb, moves, status, scoreA, scoreB), width, every, offset + GameArchiveWriter.GAME_HEADER);
+  }
+
+  private static Move toMove(Header h, int code) throws IOException {
+    int n = h.entry.size(), cell = code >>> 1;
+    if (cell >= n * n) throw new IOException("Move outside the board");
+    return new Move(cell / n, cell % n, (code & 1) == 0 ? SosGameBase.Cell.S : SosGameBase.Cell.O);
+  }
+
+  private static <E> E enumAt(E[] values, byte b) throws IOException {
+    int i = b & 0xFF;
+    if (i >= values.length) throw new IOException("Invalid archive value " + i);
+    return values[i];
+  }
+
+  /** Reads exactly {@code n} bytes at {@code pos}. */
+  static ByteBuffer read(FileChannel ch, long pos, int n) throws IOException {
+    ByteBuffer b = ByteBuffer.allocate(n);
+    while (b.hasRemaining()) {
+      if (ch.read(b, pos + b.position()) < 0) throw new EOFException("Truncated SOS archive");
+    }
+    return b.flip();
+  }
+
+  @Override public void close() throws IOException { channel.close(); }
+}
@@ -0,0 +1,237 @@
+package com.sosproject;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Appends games to a {@link GameArchive} file. Each {@link #start}/{@link #finish} pair adds one
+ * game; {@link #close} writes the index. Opening an existing archive keeps its games and appends
+ * after them.
+ *
+ * <p>The archive on disk stays readable throughout. New games go to a {@code .pending} file
+ * next to it, and only {@link #close} moves them into the archive, after its old footer, followed
+ * by the new index and footer; nothing before the old end of the file is ever overwritten. The
+ * pending file starts with that old length, so if a close is cut short, the next writer to open
+ * the archive truncates it back to the old footer. Games not yet closed are lost in a crash, but
+ * never the games already in the archive. Each append leaves the previous index and footer behind
+ * as unused bytes.
+ *
+ * <pre>
+ *   "SOSA1" 0 0 0
+ *   game*     size:u16 mode:u8 playerA:u8 playerB:u8 status:u8 moveWidth:u8 0:u8
+ *             moves:u32 scoreA:u32 scoreB:u32 keyframeEvery:u32
+ *             move[moves]         cell * 2 + (O ? 1 : 0), moveWidth bytes each
+ *             keyframe[moves / keyframeEvery], after move (j + 1) * keyframeEvery:
+ *               sBits:u64[words] oBits:u64[words] scoreA:u32 scoreB:u32 playerATurn:u8 status:u8 0:u16
+ *   index     offset:u64 per game
+ *   count:u64 "SOSAIDX1"
+ * </pre>
+ * All fields are big-endian and fixed-width, so any move or keyframe of a game is found from the
+ * game's offset by arithmetic. A game closed without {@link #finish} is kept with the status it
+ * had at its last move.
+ */
+public class GameArchiveWriter implements GameRecorder {
+  static final byte[] MAGIC = "SOSA1\0\0\0".getBytes(StandardCharsets.US_ASCII);
+  static final byte[] TRAILER = "SOSAIDX1".getBytes(StandardCharsets.US_ASCII);
+  static final int GAME_HEADER = 24;
+  static final int FOOTER = 16;
+  /** Fewest moves between keyframes; larger boards space them so they cost at most 4x the moves. */
+  static final int MIN_KEYFRAME_EVERY = 32;
+
+  private final FileChannel channel;
+  private final Path pendingPath;
+  private FileChannel pending; // new games, after the base length; opened with the first one
+  private long base;           // the archive's length when opened, where new games will go
+  private long[] offsets = new long[16];
+  private long games;
+
+  // Current game
+  private boolean open;
+  private int size, width, every;
+  private GameMode mode;
+  private PlayerType playerA, playerB;
+  private ByteArrayOutputStream moves, keyframes;
+  private int moveCount;
+  private SosGameBase last;
+
+  public GameArchiveWriter(Path path) throws IOException {
+    pendingPath = path.resolveSibling(path.getFileName() + ".pending");
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      recover();
+      if (channel.size() == 0) {
+        // An empty archive with its index, so the file is valid before any game is added.
+        writeFully(ByteBuffer.allocate(MAGIC.length + FOOTER).put(MAGIC).putLong(0).put(TRAILER).flip());
+        channel.force(false);
+      }
+      readIndex();
+      base = channel.size();
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /** Undoes a close that was cut short, which the pending file it leaves behind reveals. */
+  private void recover() throws IOException {
+    if (!Files.exists(pendingPath)) return;
+    try (FileChannel p = FileChannel.open(pendingPath, StandardOpenOption.READ)) {
+      if (p.size() >= 8 && !hasTrailer()) {
+        long oldLength = GameArchive.read(p, 0, 8).getLong();
+        if (oldLength >= MAGIC.length + FOOTER && oldLength < channel.size()) {
+          channel.truncate(oldLength);
+          channel.force(false);
+        }
+      }
+    }
+    Files.delete(pendingPath);
+  }
+
+  private boolean hasTrailer() throws IOException {
+    long length = channel.size();
+    if (length < MAGIC.length + FOOTER) return false;
+    ByteBuffer b = GameArchive.read(channel, length - TRAILER.length, TRAILER.length);
+    byte[] trailer = new byte[TRAILER.length];
+    b.get(trailer);
+    return Arrays.equals(trailer, TRAILER);
+  }
+
+  /** Loads the existing index; the file itself is left as it is. */
+  private void readIndex() throws IOException {
+    long length = channel.size();
+    if (length < MAGIC.length + FOOTER) throw new IOException("Not an SOS archive");
+    ByteBuffer footer = GameArchive.read(channel, length - FOOTER, FOOTER);
+    games = footer.getLong();
+    byte[] trailer = new byte[TRAILER.length];
+    footer.get(trailer);
+    if (!Arrays.equals(trailer, TRAILER)) throw new IOException("Not an SOS archive, or its index was not written");
+    long indexStart = length - FOOTER - games * 8;
+    if (games < 0 || indexStart < MAGIC.length) throw new IOException("Corrupt SOS archive index");
+    offsets = new long[(int) Math.max(16, games)];
+    for (long i = 0; i < games; i += 4096) {
+      int n = (int) Math.min(4096, games - i);
+      ByteBuffer b = GameArchive.read(channel, indexStart + i * 8, n * 8);
+      for (int k = 0; k < n; k++) offsets[(int) i + k] = b.getLong();
+    }
+  }
+
+  public long getGameCount() { return games; }
+
+  @Override
+  public void start(SosGameBase g, PlayerType a, PlayerType b) throws IOException {
+    if (open) writeGame();
+    size = g.getSize();
+    mode = g.getMode();
+    playerA = a;
+    playerB = b;
+    width = size * size * 2 <= 0xFFFF ? 2 : 4;
+    every = Math.max(MIN_KEYFRAME_EVERY, snapshotBytes(size) / (4 * width));
+    moves = new ByteArrayOutputStream();
+    keyframes = new ByteArrayOutputStream();
+    moveCount = 0;
+    last = g;
+    open = true;
+  }
+
+  @Override
+  public void recordMove(int index, boolean isPlayerA, int row, int col, SosGameBase.Cell letter, SosGameBase g) throws IOException {
+    if (!open) return;
+    int code = (row * size + col) << 1 | (letter == SosGameBase.Cell.O ? 1 : 0);
+    if (width == 4) {
+      moves.write(code >>> 24);
+      moves.write(code >>> 16);
+    }
+    moves.write(code >>> 8);
+    moves.write(code);
+    last = g;
+    if (++moveCount % every == 0) writeSnapshot(g.snapshot());
+  }
+
+  @Override
+  public void finish(SosGameBase g) throws IOException {
+    if (!open) return;
+    last = g;
+    writeGame();
+  }
+
+  /**
+   * Moves the new games into the archive and writes its index; an unfinished game is written
+   * first. An archive that gained no games is left untouched.
+   */
+  @Override public void close() throws IOException {
+    if (!channel.isOpen()) return;
+    try {
+      if (open) writeGame();
+      if (pending == null) return;
+      pending.force(false); // the old length must be on disk before the archive grows
+      long count = pending.size() - 8;
+      for (long done = 0; done < count; ) done += channel.transferFrom(pending.position(8 + done), base + done, count - done);
+      channel.position(base + count);
+      ByteBuffer b = ByteBuffer.allocate(8 * 4096);
+      for (long i = 0; i < games; i++) {
+        if (!b.hasRemaining()) drain(b);
+        b.putLong(offsets[(int) i]);
+      }
+      drain(b);
+      b.putLong(games).put(TRAILER);
+      drain(b);
+      channel.force(false);
+      pending.close();
+      Files.delete(pendingPath);
+    } finally {
+      if (pending != null) pending.close();
+      channel.close();
+    }
+  }
+
+  static int snapshotBytes(int size) {
+    return 16 * Bitboard.words(size * size) + 12;
+  }
+
+  private void writeSnapshot(SosGameBase.Snapshot s) {
+    ByteBuffer b = ByteBuffer.allocate(snapshotBytes(size));
+    for (long w : s.sBits()) b.putLong(w);
+    for (long w : s.oBits()) b.putLong(w);
+    b.putInt(s.scoreA()).putInt(s.scoreB()).put((byte) (s.playerATurn() ? 1 : 0)).put((byte) s.status().ordinal()).putShort((short) 0);
+    keyframes.write(b.array(), 0, b.position());
+  }
+
+  private void writeGame() throws IOException {
+    open = false;
+    if (pending == null) {
+      pending = FileChannel.open(pendingPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      writeFully(pending, ByteBuffer.allocate(8).putLong(0, base));
+    }
+    long offset = base + pending.position() - 8;
+    ByteBuffer h = ByteBuffer.allocate(GAME_HEADER);
+    h.putShort((short) size).put((byte) mode.ordinal()).put((byte) playerA.ordinal()).put((byte) playerB.ordinal())
+     .put((byte) last.getStatus().ordinal()).put((byte) width).put((byte) 0)
+     .putInt(moveCount).putInt(last.getScoreA()).putInt(last.getScoreB()).putInt(every);
+    h.flip();
+    writeFully(pending, h);
+    writeFully(pending, ByteBuffer.wrap(moves.toByteArray()));
+    writeFully(pending, ByteBuffer.wrap(keyframes.toByteArray()));
+    if (games == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+    offsets[(int) games++] = offset;
+    moves = keyframes = null;
+    last = null;
+  }
+
+  private void drain(ByteBuffer b) throws IOException {
+    b.flip();
+    writeFully(b);
+    b.clear();
+  }
+
+  private void writeFully(ByteBuffer b) throws IOException {
+    writeFully(channel, b);
+  }
+
+  private static void writeFully(FileChannel c, ByteBuffer b) throws IOException {
+    while (b.hasRemaining()) c.write(b);
+  }
+}
@@ -0,0 +1,19 @@
+package com.sosproject;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/** Writes one game to a recording: a header, one entry per move and the final result. */
+public interface GameRecorder extends Closeable {
+  void start(SosGameBase g, PlayerType a, PlayerType b) throws IOException;
+  void recordMove(int index, boolean isPlayerA, int row, int col, SosGameBase.Cell letter, SosGameBase g) throws IOException;
+
+  /**
+   * Records the move a game published, for callers that listen to the game rather than track its
+   * moves. Recorders that need only the move and its results override this to leave the game be.
+   */
+  default void recordMove(MoveEvent e) throws IOException {
+    recordMove(e.getMoveNumber(), e.isByPlayerA(), e.getRow(), e.getCol(), e.getLetter(), e.getGame());
+  }
+  void finish(SosGameBase g) throws IOException;
+}
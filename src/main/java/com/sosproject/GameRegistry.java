@@ -0,0 +1,98 @@
+package com.sosproject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The live {@link GameSession}s by id, split into independently locked stripes. Registering,
+ * finding or closing a game locks only its stripe, and only for a map operation, never while a
+ * move is played. Moves are serialised per game by the session's mailbox, so contention grows
+ * with the number of games being created and closed, not with the moves in flight.
+ */
+final class GameRegistry {
+  private final Stripe[] stripes;
+  private final int mask;
+  private final AtomicLong ids = new AtomicLong();
+  private final LongAdder count = new LongAdder();
+
+  private static final class Stripe {
+    final ReentrantLock lock = new ReentrantLock();
+    final Map<Long, GameSession> sessions = new HashMap<>();
+  }
+
+  GameRegistry() { this(4 * Runtime.getRuntime().availableProcessors()); }
+
+  /** @param stripes rounded up to a power of two */
+  GameRegistry(int stripes) {
+    if (stripes < 1) throw new IllegalArgumentException("Need at least one stripe");
+    int n = 1;
+    while (n < stripes) n <<= 1;
+    this.stripes = new Stripe[n];
+    for (int i = 0; i < n; i++) this.stripes[i] = new Stripe();
+    this.mask = n - 1;
+  }
+
+  /** A fresh id for the next session; ids are never reused. */
+  long nextId() { return ids.incrementAndGet(); }
+
+  void register(GameSession s) {
+    Stripe st = stripe(s.getId());
+    st.lock.lock();
+    try {
+      if (st.sessions.putIfAbsent(s.getId(), s) != null) throw new IllegalStateException("Game " + s.getId() + " is already registered");
+    } finally {
+      st.lock.unlock();
+    }
+    count.increment();
+  }
+
+  /** The session with this id, or null. */
+  GameSession get(long id) {
+    Stripe st = stripe(id);
+    st.lock.lock();
+    try {
+      return st.sessions.get(id);
+    } finally {
+      st.lock.unlock();
+    }
+  }
+
+  /** Unregisters and returns the session, or null; the caller closes it. */
+  GameSession remove(long id) {
+    Stripe st = stripe(id);
+    GameSession s;
+    st.lock.lock();
+    try {
+      s = st.sessions.remove(id);
+    } finally {
+      st.lock.unlock();
+    }
+    if (s != null) count.decrement();
+    return s;
+  }
+
+  int size() { return count.intValue(); }
+
+  /** Unregisters every session, one stripe at a time, and returns them. */
+  List<GameSession> removeAll() {
+    List<GameSession> all = new ArrayList<>();
+    for (Stripe st : stripes) {
+      st.lock.lock();
+      try {
+        all.addAll(st.sessions.values());
+        st.sessions.clear();
+      } finally {
+        st.lock.unlock();
+      }
+    }
+    count.add(-all.size());
+    return all;
+  }
+
+  private Stripe stripe(long id) { return stripes[(int) SosGameBase.zobrist((int) (id ^ id >>> 32)) & mask]; }
+}
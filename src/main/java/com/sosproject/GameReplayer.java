@@ -1,8 +1,12 @@
 package com.sosproject;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class GameReplayer {
 
@@ -19,39 +23,78 @@ public class GameReplayer {
     public final int size;
     public final GameMode mode;
     public final List<MoveRec> moves;
+    public final PlayerType playerA, playerB;
+    /** Whether the recording ends with a result line, i.e. was not cut off mid-game. */
+    public final boolean finished;
     public Loaded(int size, GameMode mode, List<MoveRec> moves) {
+      this(size, mode, moves, PlayerType.HUMAN, PlayerType.HUMAN, false);
+    }
+    public Loaded(int size, GameMode mode, List<MoveRec> moves, PlayerType playerA, PlayerType playerB, boolean finished) {
       this.size = size; this.mode = mode; this.moves = moves;
+      this.playerA = playerA; this.playerB = playerB; this.finished = finished;
     }
   }
 
-  public static Loaded load(Path path) throws IOException {
-    List<String> lines = Files.readAllLines(path);
-    if (lines.isEmpty() || !lines.get(0).startsWith("SOSv1")) throw new IOException("Invalid or empty SOS recording");
-
-    String header = lines.get(0);
-    int size = parseInt(header, "size");
-    GameMode mode = GameMode.valueOf(parseToken(header, "mode"));
-
-    List<MoveRec> moves = new ArrayList<>();
-    for (int i = 1; i < lines.size(); i++) {
-      String line = lines.get(i).trim();
-      if (line.isEmpty() || line.startsWith("END")) continue;
-      String[] p = line.split(",");
-      if (p.length < 5) continue;
-      boolean isA = "A".equals(p[1]);
-      int row = Integer.parseInt(p[2]);
-      int col = Integer.parseInt(p[3]);
-      SosGameBase.Cell letter = SosGameBase.Cell.valueOf(p[4]);
-      moves.add(new MoveRec(isA, row, col, letter));
+  /** Called once per recorded move by {@link #forEachMove}. */
+  @FunctionalInterface
+  public interface MoveVisitor {
+    void move(boolean isPlayerA, int row, int col, SosGameBase.Cell letter);
+  }
+
+  /** Opens an SOSv1 text or SOSv2 binary recording for streaming, detecting the format. */
+  public static RecordingReader open(Path path) throws IOException {
+    return BinaryGameReader.isBinary(path) ? new BinaryGameReader(path) : new TextGameReader(path);
+  }
+
+  /** Feeds every move of a recording to {@code visitor}; returns the number of moves. */
+  public static int forEachMove(Path path, MoveVisitor visitor) throws IOException {
+    try (RecordingReader r = open(path)) {
+      int count = 0;
+      while (r.next()) {
+        visitor.move(r.isPlayerA(), r.row(), r.col(), r.letter());
+        count++;
+      }
+      return count;
     }
-    return new Loaded(size, mode, moves);
   }
 
-  private static int parseInt(String s, String key) {
-    return Integer.parseInt(parseToken(s, key));
+  /**
+   * The moves of a recording as a lazy stream, which must be closed to release the file. Read
+   * errors surface as {@link UncheckedIOException}.
+   */
+  public static Stream<MoveRec> stream(Path path) throws IOException {
+    RecordingReader r = open(path);
+    Spliterator<MoveRec> moves = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+        Spliterator.ORDERED | Spliterator.NONNULL) {
+      @Override public boolean tryAdvance(Consumer<? super MoveRec> action) {
+        try {
+          if (!r.next()) return false;
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        action.accept(new MoveRec(r.isPlayerA(), r.row(), r.col(), r.letter()));
+        return true;
+      }
+    };
+    return StreamSupport.stream(moves, false).onClose(() -> {
+      try {
+        r.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  /** Loads a whole SOSv1 text or SOSv2 binary recording; use {@link #open} for large files. */
+  public static Loaded load(Path path) throws IOException {
+    try (RecordingReader r = open(path)) {
+      List<MoveRec> moves = new ArrayList<>();
+      while (r.next()) moves.add(new MoveRec(r.isPlayerA(), r.row(), r.col(), r.letter()));
+      return new Loaded(r.getSize(), r.getMode(), moves, r.getPlayerA(), r.getPlayerB(), r.isFinished());
+    }
   }
 
-  private static String parseToken(String s, String key) {
+  static String parseToken(String s, String key) {
     for (String part : s.split(",")) {
       String[] kv = part.split("=");
       if (kv.length == 2 && kv[0].trim().endsWith(key)) return kv[1].trim();
@@ -0,0 +1,259 @@
+package com.sosproject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Headless localhost server hosting many concurrent games over plain HTTP. Requests are handled
+ * on virtual threads, each {@link GameSession} runs its game on one virtual thread of its own,
+ * sessions are found through a lock-striped {@link GameRegistry}, and computer moves share a
+ * fixed compute pool so search never takes more cores than given.
+ *
+ * <pre>
+ *   POST   /games?size=5&amp;mode=GENERAL&amp;a=HUMAN&amp;b=COMPUTER&amp;strategy=alphabeta:20   -&gt; 201 state
+ *   GET    /games/{id}                      state
+ *   GET    /games/{id}?after=N&amp;timeout=ms  state once past N moves or over (long-poll)
+ *   POST   /games/{id}/moves?row=R&amp;col=C&amp;letter=S[&amp;seq=N]   -&gt; state after the human move
+ *   DELETE /games/{id}
+ * </pre>
+ * Parameters may also be sent as a form-encoded body. States are JSON objects with the board as
+ * a row-major string of {@code S}, {@code O} and {@code .}. A move's optional {@code seq} is the
+ * move count the client last saw; see {@link GameSession} for how it makes retries safe. Bad
+ * input, including a board larger than {@value #MAX_SIZE}, answers 400, an unknown game 404 and a
+ * stale or out-of-turn move 409.
+ *
+ * <p>Sessions do not own engines. Each compute thread builds one engine per kind on first use and
+ * searches every session's positions with it, so engine memory grows with the compute pool, not
+ * with the number of games. The move time in a strategy spec comes from the session's deadline.
+ *
+ * <pre>java -cp target/classes com.sosproject.GameServer --port 8080 --compute 8</pre>
+ */
+public class GameServer implements Closeable {
+  private static final long MAX_WAIT_MILLIS = 30_000;
+  static final int MAX_SIZE = 32;
+
+  private final HttpServer http;
+  private final ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor();
+  private final ExecutorService compute;
+  private final GameRegistry sessions = new GameRegistry();
+  /** Per-thread engines by kind; a session's computer moves only ever run on compute threads. */
+  private final Map<String, Strategy> engines = new ConcurrentHashMap<>();
+  private final Queue<Strategy> built = new ConcurrentLinkedQueue<>();
+
+  public GameServer(int port) throws IOException { this(port, Runtime.getRuntime().availableProcessors()); }
+
+  /**
+   * @param port 0 picks a free port
+   * @param computeThreads threads shared by all computer moves
+   */
+  public GameServer(int port, int computeThreads) throws IOException {
+    if (computeThreads < 1) throw new IllegalArgumentException("Need at least one compute thread");
+    // The JDK server writes headers and body separately; with Nagle on, every small response
+    // waits out the client's delayed ACK (~40 ms). Read once, when the first server is created.
+    if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+    compute = Executors.newFixedThreadPool(computeThreads);
+    http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4096);
+    http.setExecutor(requests);
+    http.createContext("/games", this::handle);
+    http.start();
+  }
+
+  public int getPort() { return http.getAddress().getPort(); }
+  public int getSessionCount() { return sessions.size(); }
+
+  private void handle(HttpExchange ex) throws IOException {
+    try (ex) {
+      int code = 200;
+      String body;
+      try {
+        String[] path = ex.getRequestURI().getPath().split("/");
+        Map<String, String> params = params(ex);
+        String method = ex.getRequestMethod();
+        if (path.length == 2 && method.equals("POST")) {
+          body = create(params).state();
+          code = 201;
+        } else if (path.length == 3 && method.equals("GET")) {
+          GameSession s = session(path[2]);
+          String after = params.get("after");
+          body = after == null ? s.state()
+              : await(s, Integer.parseInt(after), Math.min(MAX_WAIT_MILLIS, Long.parseLong(params.getOrDefault("timeout", "5000"))));
+        } else if (path.length == 3 && method.equals("DELETE")) {
+          GameSession s = sessions.remove(parseId(path[2]));
+          if (s == null) throw new NoSuchElementException(path[2]);
+          s.close();
+          body = "{}";
+        } else if (path.length == 4 && path[3].equals("moves") && method.equals("POST")) {
+          GameSession s = session(path[2]);
+          body = result(s.play(Integer.parseInt(params.getOrDefault("seq", "-1")),
+              Integer.parseInt(required(params, "row")), Integer.parseInt(required(params, "col")),
+              SosGameBase.Cell.valueOf(required(params, "letter").toUpperCase())));
+        } else {
+          code = 404;
+          body = error("No such endpoint");
+        }
+      } catch (NoSuchElementException e) {
+        code = 404;
+        body = error("No such game: " + e.getMessage());
+      } catch (IllegalStateException e) {
+        code = 409;
+        body = error(e.getMessage());
+      } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+        code = 400;
+        body = error(e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        code = 503;
+        body = error("Server is shutting down");
+      }
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      ex.getResponseHeaders().set("Content-Type", "application/json");
+      ex.sendResponseHeaders(code, bytes.length);
+      ex.getResponseBody().write(bytes);
+    }
+  }
+
+  private GameSession create(Map<String, String> p) {
+    int size = Integer.parseInt(p.getOrDefault("size", "5"));
+    if (size > MAX_SIZE) throw new IllegalArgumentException("Board size is limited to " + MAX_SIZE);
+    GameMode mode = GameMode.valueOf(p.getOrDefault("mode", "SIMPLE").toUpperCase());
+    PlayerType a = PlayerType.valueOf(p.getOrDefault("a", "HUMAN").toUpperCase());
+    PlayerType b = PlayerType.valueOf(p.getOrDefault("b", "COMPUTER").toUpperCase());
+    long id = sessions.nextId();
+    String spec = p.getOrDefault("strategy", "random");
+    Strategy strategy = a == PlayerType.COMPUTER || b == PlayerType.COMPUTER
+        ? engine(spec)
+        : null;
+    GameSession s = new GameSession(id, SosGames.create(size, mode), a, b, strategy, TournamentRunner.moveMillis(spec), compute);
+    sessions.register(s);
+    return s;
+  }
+
+  /** A {@link TournamentRunner#parseStrategy} engine, sized for one of many concurrent sessions. */
+  private Strategy engine(String spec) {
+    String kind = spec.split(":")[0];
+    LongFunction<Strategy> factory = TournamentRunner.parseStrategy(kind); // rejects unknown kinds
+    return engines.computeIfAbsent(kind, k -> new PerThreadStrategy(factory, built));
+  }
+
+  /** Hands each calling thread an engine of its own, built on that thread's first move. */
+  private static final class PerThreadStrategy implements Strategy {
+    private final ThreadLocal<Strategy> local;
+
+    PerThreadStrategy(LongFunction<Strategy> factory, Queue<Strategy> built) {
+      AtomicLong seeds = new AtomicLong();
+      local = ThreadLocal.withInitial(() -> {
+        Strategy s = factory.apply(seeds.incrementAndGet() * 0x9E3779B97F4A7C15L);
+        built.add(s);
+        return s;
+      });
+    }
+
+    @Override public Move choose(SosGameBase game) { return local.get().choose(game); }
+
+    @Override
+    public Move choose(SosGameBase game, SearchLimits limits, Consumer<SearchProgress> progress) {
+      return local.get().choose(game, limits, progress);
+    }
+  }
+
+  /** The session's answer; its own failures are rethrown as they were raised. */
+  private static String result(Future<String> f) throws InterruptedException {
+    try {
+      return f.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static String await(GameSession s, int moves, long timeoutMillis) throws InterruptedException {
+    Future<String> f = s.await(moves);
+    try {
+      return f.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      f.cancel(false);
+      return s.state();
+    } catch (ExecutionException e) {
+      return s.state(); // closed meanwhile
+    }
+  }
+
+  private GameSession session(String id) {
+    GameSession s = sessions.get(parseId(id));
+    if (s == null) throw new NoSuchElementException(id);
+    return s;
+  }
+
+  private static long parseId(String id) {
+    try {
+      return Long.parseLong(id);
+    } catch (NumberFormatException e) {
+      throw new NoSuchElementException(id);
+    }
+  }
+
+  private static String required(Map<String, String> p, String name) {
+    String v = p.get(name);
+    if (v == null) throw new IllegalArgumentException("Missing parameter: " + name);
+    return v;
+  }
+
+  private static Map<String, String> params(HttpExchange ex) throws IOException {
+    Map<String, String> p = new HashMap<>();
+    parseForm(ex.getRequestURI().getRawQuery(), p);
+    parseForm(new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), p);
+    return p;
+  }
+
+  private static void parseForm(String form, Map<String, String> into) {
+    if (form == null || form.isEmpty()) return;
+    for (String pair : form.split("&")) {
+      int eq = pair.indexOf('=');
+      if (eq <= 0) continue;
+      into.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+          URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+    }
+  }
+
+  private static String error(String message) {
+    return GameSession.appendJsonString(new StringBuilder("{\"error\":"), String.valueOf(message)).append('}').toString();
+  }
+
+  @Override
+  public void close() {
+    http.stop(0);
+    for (GameSession s : sessions.removeAll()) s.close();
+    compute.shutdownNow();
+    for (Strategy s; (s = built.poll()) != null; ) s.close();
+    requests.close();
+  }
+
+  public static void main(String[] args) throws Exception {
+    int port = 8080, threads = Runtime.getRuntime().availableProcessors();
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String v = args[i + 1];
+      switch (args[i]) {
+        case "--port" -> port = Integer.parseInt(v);
+        case "--compute" -> threads = Integer.parseInt(v);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+    GameServer server = new GameServer(port, threads);
+    Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+    System.out.println("SOS server on http://localhost:" + server.getPort() + "/games");
+  }
+}
@@ -0,0 +1,272 @@
+package com.sosproject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * One game hosted by {@link GameServer}, run as an actor: commands queue in a mailbox and the
+ * session's own virtual thread applies them one at a time, so the game, which is not thread-safe,
+ * is only ever touched by that thread and needs no lock. Computer moves run on the server's
+ * bounded compute pool and come back through the mailbox like any other command, so the session
+ * keeps answering while the computer thinks. Their time limit is a deadline fixed when the move
+ * becomes due, so a move that waits for a busy pool searches less rather than answering late.
+ * After every change the state is republished as an immutable JSON string, so reads never wait
+ * for the mailbox.
+ *
+ * <p>Moves may carry the sequence number they expect to be, which is the move count the client
+ * last saw. A move submitted against a stale position is rejected rather than applied to a
+ * position its sender never saw. Resubmitting a move that was already applied at that number
+ * succeeds without playing it twice, so clients can safely retry.
+ */
+final class GameSession {
+  private static final Runnable STOP = () -> {};
+
+  private final long id;
+  private final SosGameBase game;
+  private final PlayerType playerA;
+  private final PlayerType playerB;
+  private final Strategy strategy;
+  private final long moveNanos;
+  private final ExecutorService compute;
+  private final BlockingQueue<Runnable> mailbox = new LinkedBlockingQueue<>();
+  private final List<Waiter> waiters = new ArrayList<>();
+  /** Move k as {@code cell * 2 + (O ? 1 : 0)}; like the game, only the session thread uses it. */
+  private int[] log = new int[16];
+  private boolean thinking;
+  private String failure;
+  private volatile String state;
+  private volatile boolean closed;
+  private volatile boolean stopped;
+
+  private record Waiter(int moves, CompletableFuture<String> result) {}
+
+  /**
+   * @param strategy called only on {@code compute} threads and possibly shared with other sessions,
+   *     so the session never closes it
+   * @param moveMillis time each computer move may take, counted from when it becomes due
+   */
+  GameSession(long id, SosGameBase game, PlayerType playerA, PlayerType playerB,
+              Strategy strategy, long moveMillis, ExecutorService compute) {
+    if ((playerA == PlayerType.COMPUTER || playerB == PlayerType.COMPUTER) && (strategy == null || moveMillis <= 0)) {
+      throw new IllegalArgumentException("A computer side needs a strategy and a positive move time");
+    }
+    this.id = id;
+    this.game = game;
+    this.playerA = playerA;
+    this.playerB = playerB;
+    this.strategy = strategy;
+    this.moveNanos = moveMillis * 1_000_000L;
+    this.compute = compute;
+    this.state = toJson();
+    Thread.ofVirtual().name("sos-session-" + id).start(this::drive);
+  }
+
+  long getId() { return id; }
+
+  /** The latest published state as JSON; never blocks. */
+  String state() { return state; }
+
+  /**
+   * Plays a human move and completes with the state after it. {@code seq} is the move number the
+   * move should become, or -1 to play at whatever the current move is. Fails with
+   * {@link IllegalStateException} for a stale or out-of-turn move and
+   * {@link IllegalArgumentException} for bad input.
+   */
+  CompletableFuture<String> play(int seq, int row, int col, SosGameBase.Cell letter) {
+    return ask(() -> {
+      int moves = game.getMoveCount();
+      if (seq >= 0 && seq < moves) {
+        int n = game.getSize();
+        boolean human = (game.isMoveByPlayerA(seq) ? playerA : playerB) == PlayerType.HUMAN;
+        if (human && row >= 0 && row < n && col >= 0 && col < n && log[seq] == code(n, row, col, letter)) return state;
+        throw new IllegalStateException("Stale move " + seq + ": the game is at move " + moves);
+      }
+      if (seq > moves) throw new IllegalStateException("Move " + seq + " is ahead of the game at move " + moves);
+      if (game.getStatus() != SosGameBase.Status.IN_PROGRESS) throw new IllegalStateException("Game is over");
+      if (failure != null) throw new IllegalStateException("Game stopped: " + failure);
+      if (sideToMove() != PlayerType.HUMAN) throw new IllegalStateException("Not a human turn");
+      apply(row, col, letter);
+      return state;
+    });
+  }
+
+  /**
+   * Completes with the state once the game has passed {@code moves} moves, ended or closed; a
+   * long-poll for clients waiting on the computer. Cancel it to stop waiting.
+   */
+  CompletableFuture<String> await(int moves) {
+    CompletableFuture<String> result = new CompletableFuture<>();
+    submit(result, () -> {
+      if (isSettled(moves)) {
+        result.complete(state);
+      } else {
+        waiters.removeIf(w -> w.result.isDone());
+        waiters.add(new Waiter(moves, result));
+      }
+    });
+    return result;
+  }
+
+  /** Stops the session; queued and later commands fail, waiters get the final state. */
+  void close() {
+    closed = true;
+    mailbox.add(STOP);
+  }
+
+  private CompletableFuture<String> ask(Callable<String> command) {
+    CompletableFuture<String> result = new CompletableFuture<>();
+    submit(result, () -> {
+      try {
+        result.complete(command.call());
+      } catch (Exception e) {
+        result.completeExceptionally(e);
+      }
+    });
+    return result;
+  }
+
+  private void submit(CompletableFuture<String> result, Runnable command) {
+    mailbox.add(() -> {
+      if (closed) result.completeExceptionally(new IllegalStateException("Game is closed"));
+      else command.run();
+    });
+    // The driver drains the mailbox after it stops; a command queued after that drain fails here.
+    if (stopped) drain();
+  }
+
+  private void drive() {
+    try {
+      think();
+      for (Runnable r; (r = mailbox.take()) != STOP; ) {
+        try {
+          r.run();
+        } catch (RuntimeException e) {
+          fail("Session failed: " + e);
+        }
+      }
+    } catch (InterruptedException e) {
+      // closed below
+    } finally {
+      // Commands that arrive from now on must fail on the caller, not run there.
+      closed = true;
+      stopped = true;
+      drain();
+      for (Waiter w : waiters) w.result.complete(state);
+      waiters.clear();
+    }
+  }
+
+  private void drain() {
+    for (Runnable r; (r = mailbox.poll()) != null; ) if (r != STOP) r.run();
+  }
+
+  private PlayerType sideToMove() { return game.isPlayerATurn() ? playerA : playerB; }
+
+  private boolean isSettled(int moves) {
+    return closed || failure != null || game.getMoveCount() > moves || game.getStatus() != SosGameBase.Status.IN_PROGRESS;
+  }
+
+  private static int code(int n, int row, int col, SosGameBase.Cell letter) {
+    return (row * n + col) << 1 | (letter == SosGameBase.Cell.O ? 1 : 0);
+  }
+
+  private void apply(int row, int col, SosGameBase.Cell letter) {
+    int k = game.getMoveCount();
+    game.placeLetter(row, col, letter);
+    if (k == log.length) log = Arrays.copyOf(log, k * 2);
+    log[k] = code(game.getSize(), row, col, letter);
+    state = toJson();
+    waiters.removeIf(w -> {
+      if (w.result.isDone()) return true;
+      if (!isSettled(w.moves)) return false;
+      w.result.complete(state);
+      return true;
+    });
+    think();
+  }
+
+  /** Starts a computer move if one is due; its result comes back through the mailbox. */
+  private void think() {
+    if (thinking || closed || failure != null || game.getStatus() != SosGameBase.Status.IN_PROGRESS
+        || sideToMove() != PlayerType.COMPUTER) {
+      return;
+    }
+    thinking = true;
+    SosGameBase position = game.copy();
+    SearchLimits limits = new SearchLimits(System.nanoTime() + moveNanos, Long.MAX_VALUE);
+    try {
+      CompletableFuture.supplyAsync(() -> strategy.choose(position, limits, null), compute)
+          .whenComplete((m, e) -> mailbox.add(() -> computerMoved(m, e)));
+    } catch (RejectedExecutionException e) {
+      closed = true; // the server is shutting down
+    }
+  }
+
+  private void computerMoved(Move m, Throwable error) {
+    thinking = false;
+    if (closed) return;
+    if (error != null || m == null) {
+      fail(error != null ? "Strategy failed: " + error : "Strategy returned no move");
+      return;
+    }
+    try {
+      apply(m.row(), m.col(), m.letter());
+    } catch (RuntimeException e) {
+      fail("Strategy played an illegal move " + m + ": " + e.getMessage());
+    }
+  }
+
+  /** Stops the computer for good: the error is published and every waiter gets it. */
+  private void fail(String message) {
+    if (failure == null) failure = message;
+    state = toJson();
+    for (Waiter w : waiters) w.result.complete(state);
+    waiters.clear();
+  }
+
+  private String toJson() {
+    int n = game.getSize();
+    StringBuilder b = new StringBuilder(128 + n * n);
+    b.append("{\"id\":").append(id)
+        .append(",\"size\":").append(n)
+        .append(",\"mode\":\"").append(game.getMode())
+        .append("\",\"playerA\":\"").append(playerA)
+        .append("\",\"playerB\":\"").append(playerB)
+        .append("\",\"moves\":").append(game.getMoveCount())
+        .append(",\"turn\":\"").append(game.isPlayerATurn() ? 'A' : 'B')
+        .append("\",\"status\":\"").append(game.getStatus())
+        .append("\",\"scoreA\":").append(game.getScoreA())
+        .append(",\"scoreB\":").append(game.getScoreB());
+    if (failure != null) appendJsonString(b.append(",\"error\":"), failure);
+    b.append(",\"board\":\"");
+    for (int r = 0; r < n; r++) {
+      for (int c = 0; c < n; c++) {
+        SosGameBase.Cell cell = game.getCell(r, c);
+        b.append(cell == SosGameBase.Cell.S ? 'S' : cell == SosGameBase.Cell.O ? 'O' : '.');
+      }
+    }
+    return b.append("\"}").toString();
+  }
+
+  /** {@code s} as a quoted JSON string, escaping quotes, backslashes and every control character. */
+  static StringBuilder appendJsonString(StringBuilder b, String s) {
+    b.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"' -> b.append("\\\"");
+        case '\\' -> b.append("\\\\");
+        case '\n' -> b.append("\\n");
+        case '\r' -> b.append("\\r");
+        case '\t' -> b.append("\\t");
+        default -> {
+          if (c < 0x20) b.append(String.format("\\u%04x", (int) c));
+          else b.append(c);
+        }
+      }
+    }
+    return b.append('"');
+  }
+}
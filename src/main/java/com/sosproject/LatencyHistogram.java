@@ -0,0 +1,104 @@
+package com.sosproject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear histogram of non-negative values, in the style of HdrHistogram: values below 32 get
+ * a bucket each, and every power of two above is split into 32 buckets, so a percentile is within
+ * about 3% of the true value across the whole {@code long} range in under 16 KB. Recording is one
+ * atomic add on a bucket, with no lock and no allocation, so any number of threads can record at
+ * once; reads take a snapshot that may miss values recorded while it is taken.
+ */
+public final class LatencyHistogram implements LatencyHistogramMBean {
+  private static final int SUB_BITS = 5;
+  private static final int SUB = 1 << SUB_BITS;
+  private static final int BUCKETS = (64 - SUB_BITS) * SUB;
+
+  private final String name;
+  private final String unit;
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  public LatencyHistogram(String name) { this(name, "ns"); }
+
+  /** @param unit what the values count, for {@link #toString()}: "ns" for latencies */
+  public LatencyHistogram(String name, String unit) {
+    this.name = name;
+    this.unit = unit;
+  }
+
+  public String getName() { return name; }
+
+  /** Records one value; negative values count as zero. */
+  public void record(long value) {
+    if (value < 0) value = 0;
+    counts.incrementAndGet(bucket(value));
+    sum.add(value);
+    if (value > max.get()) max.accumulateAndGet(value, Math::max);
+  }
+
+  /** Records the time since {@code startNanos}, a {@link System#nanoTime()} reading. */
+  public void recordSince(long startNanos) { record(System.nanoTime() - startNanos); }
+
+  @Override public long getCount() {
+    long n = 0;
+    for (int i = 0; i < BUCKETS; i++) n += counts.get(i);
+    return n;
+  }
+
+  @Override public double getMean() {
+    long n = getCount();
+    return n == 0 ? 0.0 : (double) sum.sum() / n;
+  }
+
+  @Override public long getMax() { return max.get(); }
+  @Override public long getP50() { return percentile(50); }
+  @Override public long getP90() { return percentile(90); }
+  @Override public long getP99() { return percentile(99); }
+  @Override public long getP999() { return percentile(99.9); }
+
+  /** The value at or below which {@code p} percent of recorded values fall; 0 when empty. */
+  public long percentile(double p) {
+    if (p < 0 || p > 100) throw new IllegalArgumentException("Percentile must be 0..100");
+    long[] snap = new long[BUCKETS];
+    long n = 0;
+    for (int i = 0; i < BUCKETS; i++) n += snap[i] = counts.get(i);
+    if (n == 0) return 0;
+    long rank = Math.max(1, (long) Math.ceil(p / 100 * n));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snap[i];
+      if (seen >= rank) return Math.min(middle(i), max.get());
+    }
+    return max.get();
+  }
+
+  @Override public void reset() {
+    for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+    sum.reset();
+    max.set(0);
+  }
+
+  /** One line: count, mean, percentiles and max. */
+  @Override public String toString() {
+    return String.format("%-16s n=%-10d mean=%.0f p50=%d p90=%d p99=%d p99.9=%d max=%d %s",
+        name, getCount(), getMean(), getP50(), getP90(), getP99(), getP999(), getMax(), unit);
+  }
+
+  static int bucket(long v) {
+    if (v < SUB) return (int) v;
+    int exp = 63 - Long.numberOfLeadingZeros(v); // >= SUB_BITS
+    return (exp - SUB_BITS + 1) * SUB + (int) (v >>> (exp - SUB_BITS)) - SUB;
+  }
+
+  /** The middle of bucket {@code i}'s value range. */
+  static long middle(int i) {
+    if (i < SUB) return i;
+    int shift = i / SUB - 1;
+    long lower = (long) (SUB + i % SUB) << shift;
+    return lower + ((1L << shift) >>> 1);
+  }
+}
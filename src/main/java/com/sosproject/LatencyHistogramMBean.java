@@ -0,0 +1,13 @@
+package com.sosproject;
+
+/** JMX view of a {@link LatencyHistogram}; values are in the histogram's unit, nanoseconds unless it says otherwise. */
+public interface LatencyHistogramMBean {
+  long getCount();
+  double getMean();
+  long getMax();
+  long getP50();
+  long getP90();
+  long getP99();
+  long getP999();
+  void reset();
+}
@@ -0,0 +1,105 @@
+package com.sosproject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every SOS line (three cells in a row in one of the four directions) on a board of one size,
+ * with an index from each cell to the lines through it and its role in each. Tables are built
+ * once per size and shared by all games and strategies.
+ *
+ * <p>Cells are {@code row * size + col}. Line {@code t} is cells {@code lineCell(t, 0..2)},
+ * which must hold S, O, S. Roles are the position in the line: 0 start, 1 centre, 2 end.
+ */
+public final class LineTable {
+  /** Largest size with a table; beyond it a table would cost more memory than it saves time. */
+  public static final int MAX_SIZE = 256;
+
+  private static final int[][] DIRS = { {1,0}, {0,1}, {1,1}, {1,-1} };
+  private static final Map<Integer, LineTable> TABLES = new ConcurrentHashMap<>();
+
+  private final int size;
+  private final int[] lines;      // 3 cells per line
+  private final int[] cellStart;  // lines through cell i are entries[cellStart[i] .. cellStart[i + 1])
+  private final int[] entries;    // (line * 3) << 2 | role
+
+  public static LineTable forSize(int size) {
+    if (size < SosGameBase.MIN_SIZE || size > MAX_SIZE) {
+      throw new IllegalArgumentException("Line tables cover sizes " + SosGameBase.MIN_SIZE + ".." + MAX_SIZE);
+    }
+    return TABLES.computeIfAbsent(size, LineTable::new);
+  }
+
+  private LineTable(int size) {
+    this.size = size;
+    int cells = size * size;
+    int count = 0;
+    for (int[] d : DIRS) count += (size - 2 * Math.abs(d[0])) * (size - 2 * Math.abs(d[1]));
+    lines = new int[count * 3];
+    int[] perCell = new int[cells + 1];
+    int t = 0;
+    for (int r = 0; r < size; r++) {
+      for (int c = 0; c < size; c++) {
+        for (int[] d : DIRS) {
+          int r2 = r + 2 * d[0], c2 = c + 2 * d[1];
+          if (r2 >= size || c2 < 0 || c2 >= size) continue;
+          int step = d[0] * size + d[1];
+          for (int j = 0; j < 3; j++) {
+            lines[t * 3 + j] = r * size + c + j * step;
+            perCell[lines[t * 3 + j] + 1]++;
+          }
+          t++;
+        }
+      }
+    }
+    cellStart = new int[cells + 1];
+    for (int i = 0; i < cells; i++) cellStart[i + 1] = cellStart[i] + perCell[i + 1];
+    entries = new int[count * 3];
+    int[] fill = new int[cells];
+    for (int line = 0; line < count; line++) {
+      for (int j = 0; j < 3; j++) {
+        int cell = lines[line * 3 + j];
+        entries[cellStart[cell] + fill[cell]++] = (line * 3) << 2 | j;
+      }
+    }
+  }
+
+  public int getSize() { return size; }
+  public int lineCount() { return lines.length / 3; }
+  public int lineCell(int line, int role) { return lines[line * 3 + role]; }
+  public int cellLineCount(int cell) { return cellStart[cell + 1] - cellStart[cell]; }
+  /** The {@code k}-th line through {@code cell}, for {@code k < cellLineCount(cell)}. */
+  public int cellLine(int cell, int k) { return (entries[cellStart[cell] + k] >>> 2) / 3; }
+  /** Role of {@code cell} in its {@code k}-th line. */
+  public int cellRole(int cell, int k) { return entries[cellStart[cell] + k] & 3; }
+
+  /** Offset of the {@code k}-th line through {@code cell} in {@link #packedLines()}. */
+  int lineBase(int cell, int k) { return entries[cellStart[cell] + k] >>> 2; }
+  /** All lines, three cells each; shared, so read only. */
+  int[] packedLines() { return lines; }
+
+  /** Complete lines through {@code cell}, which must already hold its letter. */
+  int countCompletedAt(long[] sBits, long[] oBits, int cell) {
+    boolean placedO = Bitboard.get(oBits, cell);
+    int count = 0;
+    for (int e = cellStart[cell], end = cellStart[cell + 1]; e < end; e++) {
+      int entry = entries[e];
+      // An O only completes lines as the centre, an S only as an end.
+      if (((entry & 3) == 1) != placedO) continue;
+      int base = entry >>> 2;
+      if (Bitboard.get(sBits, lines[base]) && Bitboard.get(oBits, lines[base + 1]) && Bitboard.get(sBits, lines[base + 2])) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Complete lines anywhere on the board, one line at a time. */
+  int countCompleted(long[] sBits, long[] oBits) {
+    int count = 0;
+    for (int i = 0; i < lines.length; i += 3) {
+      if (Bitboard.get(sBits, lines[i]) && Bitboard.get(oBits, lines[i + 1]) && Bitboard.get(sBits, lines[i + 2])) count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,181 @@
+package com.sosproject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives a {@link GameServer} with many simulated human players, one virtual thread each. Every
+ * client plays whole games against the server's computer side, picking random legal moves, and
+ * times each human move request from send to response. Latencies are kept per client and merged
+ * at the end so measuring adds no contention of its own.
+ *
+ * <pre>java -cp target/classes com.sosproject.LoadGenerator --url http://localhost:8080 \
+ *     --clients 50000 --games 100000 --size 5 --mode GENERAL --strategy random</pre>
+ */
+public class LoadGenerator {
+  /** Human move latencies in nanoseconds, sorted. */
+  public record Result(long games, long errors, long nanos, long[] latencies) {
+    public long moves() { return latencies.length; }
+    public double movesPerSecond() { return nanos == 0 ? 0.0 : latencies.length * 1e9 / nanos; }
+    /** The {@code p}-th percentile latency in nanoseconds, {@code 0 < p <= 100}. */
+    public long percentile(double p) {
+      if (latencies.length == 0) return 0;
+      int i = (int) Math.ceil(p / 100 * latencies.length) - 1;
+      return latencies[Math.max(0, Math.min(latencies.length - 1, i))];
+    }
+    @Override public String toString() {
+      return String.format("games=%d errors=%d moves=%d (%.0f/s) p50=%.2fms p99=%.2fms max=%.2fms",
+          games, errors, moves(), movesPerSecond(), percentile(50) / 1e6, percentile(99) / 1e6, percentile(100) / 1e6);
+    }
+  }
+
+  private final URI base;
+  private final int size;
+  private final GameMode mode;
+  private final String strategy;
+  private int clients = 64;
+  private long seed = 1234L;
+
+  public LoadGenerator(URI base, int size, GameMode mode, String strategy) {
+    if (base == null || mode == null || strategy == null) throw new IllegalArgumentException("URL, mode and strategy are required");
+    this.base = base;
+    this.size = size;
+    this.mode = mode;
+    this.strategy = strategy;
+  }
+
+  /** Concurrent players; each keeps one game open at a time. */
+  public LoadGenerator clients(int clients) {
+    if (clients < 1) throw new IllegalArgumentException("Need at least one client");
+    this.clients = clients;
+    return this;
+  }
+
+  public LoadGenerator seed(long seed) { this.seed = seed; return this; }
+
+  /** Plays {@code games} games across the clients and returns once all have finished. */
+  public Result run(long games) throws InterruptedException {
+    AtomicLong next = new AtomicLong();
+    LongAdder done = new LongAdder(), errors = new LongAdder();
+    long[][] perClient = new long[clients][];
+    long start = System.nanoTime();
+    try (HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+         ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int c = 0; c < clients; c++) {
+        int client = c;
+        threads.execute(() -> {
+          Random rng = new Random(seed * 0x9E3779B97F4A7C15L + client);
+          Samples lat = new Samples();
+          try {
+            while (next.getAndIncrement() < games) {
+              try {
+                play(http, rng, lat);
+                done.increment();
+              } catch (IOException | RuntimeException e) {
+                errors.increment();
+              }
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } finally {
+            perClient[client] = Arrays.copyOf(lat.values, lat.count);
+          }
+        });
+      }
+    }
+    long nanos = System.nanoTime() - start;
+    long[] all = Arrays.stream(perClient).filter(a -> a != null).flatMapToLong(Arrays::stream).toArray();
+    Arrays.sort(all);
+    return new Result(done.sum(), errors.sum(), nanos, all);
+  }
+
+  /** Plays one game as the human first player, recording each human move's latency. */
+  private void play(HttpClient http, Random rng, Samples lat) throws IOException, InterruptedException {
+    String state = send(http, "POST", "/games?size=" + size + "&mode=" + mode + "&a=HUMAN&b=COMPUTER&strategy=" + strategy, 201);
+    String id = field(state, "id");
+    try {
+      while (field(state, "status").equals("IN_PROGRESS")) {
+        if (field(state, "turn").equals("A")) {
+          String board = field(state, "board");
+          int cell = randomEmpty(board, rng);
+          String letter = rng.nextBoolean() ? "S" : "O";
+          String move = "?seq=" + field(state, "moves") + "&row=" + cell / size + "&col=" + cell % size + "&letter=" + letter;
+          long t0 = System.nanoTime();
+          state = send(http, "POST", "/games/" + id + "/moves" + move, 200);
+          lat.add(System.nanoTime() - t0);
+        } else {
+          state = send(http, "GET", "/games/" + id + "?after=" + field(state, "moves") + "&timeout=10000", 200);
+        }
+      }
+    } finally {
+      send(http, "DELETE", "/games/" + id, 200);
+    }
+  }
+
+  private String send(HttpClient http, String method, String path, int expect) throws IOException, InterruptedException {
+    HttpRequest req = HttpRequest.newBuilder(base.resolve(path)).method(method, HttpRequest.BodyPublishers.noBody()).build();
+    HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+    if (res.statusCode() != expect) throw new IOException(method + " " + path + " -> " + res.statusCode() + " " + res.body());
+    return res.body();
+  }
+
+  private static int randomEmpty(String board, Random rng) {
+    int empty = 0;
+    for (int i = 0; i < board.length(); i++) if (board.charAt(i) == '.') empty++;
+    int k = rng.nextInt(empty);
+    for (int i = 0; ; i++) if (board.charAt(i) == '.' && k-- == 0) return i;
+  }
+
+  /** One client's latencies; only its own thread writes them. */
+  private static final class Samples {
+    long[] values = new long[256];
+    int count;
+
+    void add(long v) {
+      if (count == values.length) values = Arrays.copyOf(values, count * 2);
+      values[count++] = v;
+    }
+  }
+
+  /** The raw value of a top-level field in the server's flat JSON, without quotes. */
+  static String field(String json, String name) {
+    String key = "\"" + name + "\":";
+    int i = json.indexOf(key);
+    if (i < 0) throw new IllegalArgumentException("No field " + name + " in " + json);
+    i += key.length();
+    if (json.charAt(i) == '"') return json.substring(i + 1, json.indexOf('"', i + 1));
+    int end = i;
+    while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}') end++;
+    return json.substring(i, end);
+  }
+
+  public static void main(String[] args) throws Exception {
+    URI url = URI.create("http://localhost:8080");
+    int size = 5, clients = 1000;
+    GameMode mode = GameMode.SIMPLE;
+    long games = 10_000, seed = 1234L;
+    String spec = "random";
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String v = args[i + 1];
+      switch (args[i]) {
+        case "--url" -> url = URI.create(v);
+        case "--size" -> size = Integer.parseInt(v);
+        case "--mode" -> mode = GameMode.valueOf(v.toUpperCase());
+        case "--games" -> games = Long.parseLong(v);
+        case "--clients" -> clients = Integer.parseInt(v);
+        case "--seed" -> seed = Long.parseLong(v);
+        case "--strategy" -> spec = v;
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+    System.out.println(new LoadGenerator(url, size, mode, spec).clients(clients).seed(seed).run(games));
+  }
+}
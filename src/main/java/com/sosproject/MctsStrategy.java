@@ -0,0 +1,285 @@
+package com.sosproject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Root-parallel Monte Carlo tree search: every worker grows its own UCT tree from the same root
+ * on a fork-join pool, and the root visit counts are summed to pick the move. Workers share no
+ * mutable state, so throughput scales with cores without locks or virtual loss.
+ *
+ * <p>Trees live in preallocated per-worker arrays and playouts use make/unmake on a private game
+ * copy, sampling cells from its empty-cell set, so the search loop does not allocate.
+ *
+ * <p>The search is anytime. Its nodes are playouts, split evenly between the workers so a node
+ * limit gives the same move on any machine. A deadline, node limit or interrupt of the calling
+ * thread stops the workers after their current playout or batch, and the move is picked from the
+ * trees grown so far. Progress is reported once, at the end: the most visited line, followed
+ * through the tree of the worker that visited the chosen move most.
+ *
+ * <p>With one thread the search runs on the calling thread and no pool is created, so callers
+ * that already spread games over their own threads pay for nothing else. With more, the pool
+ * lives until {@link #close}.
+ */
+public class MctsStrategy implements Strategy {
+  private static final double EXPLORATION = 1.4;
+
+  private final long budgetNanos;
+  private final ForkJoinPool pool; // null with one thread
+  private final Worker[] workers;
+  private final long seed;
+  private long searches;
+
+  private long lastPlayouts;
+  private long lastNanos;
+
+  public MctsStrategy(long moveBudgetMillis) {
+    this(moveBudgetMillis, Runtime.getRuntime().availableProcessors(), 1234L);
+  }
+
+  public MctsStrategy(long moveBudgetMillis, int threads, long seed) {
+    this(moveBudgetMillis, threads, seed, 1 << 18);
+  }
+
+  /** @param nodesPerWorker tree capacity of each worker; leaves past it are only played out */
+  public MctsStrategy(long moveBudgetMillis, int threads, long seed, int nodesPerWorker) {
+    if (moveBudgetMillis <= 0) throw new IllegalArgumentException("Budget must be positive");
+    if (threads < 1) throw new IllegalArgumentException("Need at least one thread");
+    if (nodesPerWorker < 2) throw new IllegalArgumentException("Tree needs room for children");
+    this.budgetNanos = moveBudgetMillis * 1_000_000L;
+    this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    this.seed = seed;
+    this.workers = new Worker[threads];
+    for (int w = 0; w < threads; w++) workers[w] = new Worker(nodesPerWorker);
+  }
+
+  @Override
+  public Move choose(SosGameBase g) {
+    return choose(g, new SearchLimits(System.nanoTime() + budgetNanos, Long.MAX_VALUE), null);
+  }
+
+  @Override
+  public Move choose(SosGameBase g, SearchLimits limits, Consumer<SearchProgress> progress) {
+    if (g.getStatus() != SosGameBase.Status.IN_PROGRESS) return null;
+    long start = System.nanoTime();
+    long allocated = EngineMetrics.ENABLED ? EngineMetrics.allocatedBytes() : 0L;
+    long round = ++searches;
+
+    AtomicBoolean stop = new AtomicBoolean();
+    if (pool == null) {
+      workers[0].search(g.copy(), limits, limits.maxNodes(), seed ^ (round * 0x9E3779B97F4A7C15L), stop);
+      return best(g, start, allocated, progress);
+    }
+    List<ForkJoinTask<?>> tasks = new ArrayList<>(workers.length);
+    for (int w = 0; w < workers.length; w++) {
+      Worker worker = workers[w];
+      long workerSeed = seed ^ (round * 0x9E3779B97F4A7C15L) ^ w;
+      long quota = limits.maxNodes() / workers.length + (w < limits.maxNodes() % workers.length ? 1 : 0);
+      tasks.add(pool.submit(() -> worker.search(g.copy(), limits, quota, workerSeed, stop)));
+    }
+    // Wait for every worker even when interrupted, so no tree is read while it is still growing.
+    boolean interrupted = false;
+    for (ForkJoinTask<?> f : tasks) {
+      while (true) {
+        try {
+          f.get();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+          stop.set(true);
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("MCTS worker failed", e.getCause());
+        }
+      }
+    }
+    if (interrupted) Thread.currentThread().interrupt();
+    return best(g, start, allocated, progress);
+  }
+
+  /** Sums the root visits of every worker's finished tree into the move. */
+  private Move best(SosGameBase g, long start, long allocated, Consumer<SearchProgress> progress) {
+    // Every worker expands the root in the same order, so child k is the same move everywhere.
+    Worker first = workers[0];
+    int children = first.childCount[0];
+    int bestChild = -1;
+    long bestVisits = -1, playouts = 0;
+    for (int k = 0; k < children; k++) {
+      long visits = 0;
+      for (Worker w : workers) visits += w.visits[w.firstChild[0] + k];
+      if (visits > bestVisits) {
+        bestVisits = visits;
+        bestChild = k;
+      }
+    }
+    for (Worker w : workers) playouts += w.playouts;
+
+    lastPlayouts = playouts;
+    lastNanos = System.nanoTime() - start;
+    if (EngineMetrics.ENABLED) EngineMetrics.INSTANCE.searched(start, playouts, allocated);
+    if (bestChild < 0) return null;
+    int n = g.getSize();
+    Move best = toMove(first.move[first.firstChild[0] + bestChild], n);
+    if (progress != null) progress.accept(progress(bestChild, playouts, n));
+    return best;
+  }
+
+  /** The most visited line through the tree of the worker that visited root child {@code k} most. */
+  private SearchProgress progress(int k, long playouts, int n) {
+    Worker best = workers[0];
+    for (Worker w : workers) {
+      if (w.visits[w.firstChild[0] + k] > best.visits[best.firstChild[0] + k]) best = w;
+    }
+    int node = best.firstChild[0] + k;
+    int value = best.visits[node] == 0 ? 500 : (int) Math.round(1000 * best.reward[node] / best.visits[node]);
+    List<Move> pv = new ArrayList<>();
+    while (true) {
+      pv.add(toMove(best.move[node], n));
+      if (best.childCount[node] == 0) break;
+      int next = best.firstChild[node];
+      for (int c = next + 1; c < best.firstChild[node] + best.childCount[node]; c++) {
+        if (best.visits[c] > best.visits[next]) next = c;
+      }
+      if (best.visits[next] == 0) break;
+      node = next;
+    }
+    return new SearchProgress(pv.size(), playouts, lastNanos, value, pv);
+  }
+
+  private static Move toMove(int move, int n) {
+    int cell = move >> 1;
+    return new Move(cell / n, cell % n, (move & 1) == 0 ? SosGameBase.Cell.S : SosGameBase.Cell.O);
+  }
+
+  public long getLastPlayouts() { return lastPlayouts; }
+  public double getLastPlayoutsPerSecond() {
+    return lastNanos == 0 ? 0.0 : lastPlayouts * 1e9 / lastNanos;
+  }
+
+  /** Shuts the worker pool down once a search in progress has finished; later moves fail. */
+  @Override
+  public void close() {
+    if (pool != null) pool.shutdown();
+  }
+
+  /** One search thread's tree and scratch space, reused across moves. */
+  private static final class Worker {
+    int[] move, parent, firstChild, childCount, visits;
+    double[] reward;     // total reward for the player who made the move into the node
+    boolean[] moverA;
+    int nodeCount;
+    long playouts;
+
+    Worker(int capacity) {
+      allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+      move = new int[capacity];
+      parent = new int[capacity];
+      firstChild = new int[capacity];
+      childCount = new int[capacity];
+      visits = new int[capacity];
+      reward = new double[capacity];
+      moverA = new boolean[capacity];
+    }
+
+    void search(SosGameBase game, SearchLimits limits, long quota, long seed, AtomicBoolean stop) {
+      SplittableRandom rng = new SplittableRandom(seed);
+      int n = game.getSize();
+      if (move.length < 1 + 2 * n * n) allocate(1 + 2 * n * n); // the root's children must fit
+      int rootMoves = game.getMoveCount();
+      nodeCount = 1;
+      parent[0] = -1;
+      visits[0] = 0;
+      childCount[0] = 0;
+      playouts = 0;
+      expand(0, game);
+
+      do {
+        for (int batch = 0; batch < 16 && playouts < quota; batch++) {
+          int node = 0;
+          // Selection: descend through fully expanded nodes.
+          while (childCount[node] > 0) {
+            node = select(node);
+            play(game, move[node]);
+          }
+          // Expansion: grow the tree at a leaf that has been visited once already.
+          if (visits[node] > 0 && game.getStatus() == SosGameBase.Status.IN_PROGRESS && expand(node, game)) {
+            node = firstChild[node] + rng.nextInt(childCount[node]);
+            play(game, move[node]);
+          }
+          SosGameBase.Status result = playout(game, rng);
+          for (int x = node; x >= 0; x = parent[x]) {
+            visits[x]++;
+            if (result == SosGameBase.Status.DRAW) reward[x] += 0.5;
+            else if ((result == SosGameBase.Status.PLAYER_A_WON) == moverA[x]) reward[x] += 1.0;
+          }
+          game.undo(game.getMoveCount() - rootMoves);
+          playouts++;
+        }
+      } while (playouts < quota && !stop.get() && !Thread.currentThread().isInterrupted()
+          && !limits.expired(System.nanoTime()));
+    }
+
+    private int select(int node) {
+      int first = firstChild[node], end = first + childCount[node];
+      double logN = Math.log(visits[node] + 1);
+      int best = first;
+      double bestScore = Double.NEGATIVE_INFINITY;
+      for (int c = first; c < end; c++) {
+        if (visits[c] == 0) return c;
+        double score = reward[c] / visits[c] + EXPLORATION * Math.sqrt(logN / visits[c]);
+        if (score > bestScore) {
+          bestScore = score;
+          best = c;
+        }
+      }
+      return best;
+    }
+
+    /** Adds a child per legal move; false when the tree is full. */
+    private boolean expand(int node, SosGameBase game) {
+      int count = 2 * game.getEmptyCount();
+      if (count == 0 || nodeCount + count > move.length) return false;
+      boolean aToMove = game.isPlayerATurn();
+      int first = nodeCount;
+      for (int k = 0; k < count / 2; k++) {
+        int cell = game.getEmptyCell(k);
+        for (int letter = 0; letter < 2; letter++) {
+          int c = nodeCount++;
+          move[c] = cell << 1 | letter;
+          parent[c] = node;
+          childCount[c] = 0;
+          visits[c] = 0;
+          reward[c] = 0;
+          moverA[c] = aToMove;
+        }
+      }
+      firstChild[node] = first;
+      childCount[node] = count;
+      return true;
+    }
+
+    /** Plays random moves to the end; the caller undoes them. */
+    private SosGameBase.Status playout(SosGameBase game, SplittableRandom rng) {
+      if (game.getStatus() != SosGameBase.Status.IN_PROGRESS) return game.getStatus();
+      int n = game.getSize();
+      while (game.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+        int cell = game.getEmptyCell(rng.nextInt(game.getEmptyCount()));
+        game.placeLetter(cell / n, cell % n, rng.nextBoolean() ? SosGameBase.Cell.S : SosGameBase.Cell.O);
+      }
+      return game.getStatus();
+    }
+
+    private static void play(SosGameBase game, int move) {
+      int n = game.getSize(), cell = move >> 1;
+      game.placeLetter(cell / n, cell % n, (move & 1) == 0 ? SosGameBase.Cell.S : SosGameBase.Cell.O);
+    }
+  }
+}
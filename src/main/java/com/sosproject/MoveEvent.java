@@ -0,0 +1,59 @@
+package com.sosproject;
+
+/**
+ * One move as its game published it: where, what and by whom, every SOS it completed, and what it
+ * did to the scores, turn and status. A game fills in the same instance for each of its moves, so
+ * publishing allocates nothing; the values are only valid during the listener call. Undoing a move
+ * publishes the same description of it again, through {@link MoveListener#moveUndone}.
+ *
+ * <p>Lines are given as their first and last cells ({@code row * size + col}) in the orientation
+ * of {@link SosGameBase#sosLinesAt}; the O is the cell halfway between them.
+ */
+public final class MoveEvent {
+  private final SosGameBase game;
+  private final int[] lines = new int[16]; // at most eight SOS lines run through one cell
+  int moveNumber;
+  int row, col;
+  SosGameBase.Cell letter;
+  boolean byPlayerA;
+  int lineCount;
+  int scoreDeltaA, scoreDeltaB;
+  boolean turnKept;
+
+  MoveEvent(SosGameBase game) { this.game = game; }
+
+  /** The game the move was made on, as it stands after the move, or after its undo. */
+  public SosGameBase getGame() { return game; }
+  /** 1-based number of the move in its game. */
+  public int getMoveNumber() { return moveNumber; }
+  public int getRow() { return row; }
+  public int getCol() { return col; }
+  public int getCell() { return row * game.getSize() + col; }
+  public SosGameBase.Cell getLetter() { return letter; }
+  public boolean isByPlayerA() { return byPlayerA; }
+
+  /** How many SOS lines the move completed. */
+  public int getLineCount() { return lineCount; }
+  public int getLineFirst(int k) { return lines[2 * checkLine(k)]; }
+  public int getLineLast(int k) { return lines[2 * checkLine(k) + 1]; }
+
+  public int getScoreDeltaA() { return scoreDeltaA; }
+  public int getScoreDeltaB() { return scoreDeltaB; }
+  public int getScoreA() { return game.getScoreA(); }
+  public int getScoreB() { return game.getScoreB(); }
+  /** Whether the mover moves again: a scoring General-mode move in an unfinished game. */
+  public boolean isTurnKept() { return turnKept; }
+  public SosGameBase.Status getStatus() { return game.getStatus(); }
+
+  int[] lineBuffer() { return lines; }
+
+  private int checkLine(int k) {
+    if (k < 0 || k >= lineCount) throw new IndexOutOfBoundsException("No line " + k);
+    return k;
+  }
+
+  @Override public String toString() {
+    return "Move " + moveNumber + " " + letter + " at " + row + "," + col + " by " + (byPlayerA ? "A" : "B")
+        + ", " + lineCount + " SOS" + (turnKept ? ", turn kept" : "");
+  }
+}
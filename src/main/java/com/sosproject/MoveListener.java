@@ -0,0 +1,17 @@
+package com.sosproject;
+
+/** Told about every move made and undone on a game; see {@link SosGameBase#addMoveListener}. */
+@FunctionalInterface
+public interface MoveListener {
+  /**
+   * Called after the move has been applied, on the thread that made it. The event is reused for
+   * the game's next move, so copy out anything that must outlive the call.
+   */
+  void moveMade(MoveEvent e);
+
+  /**
+   * Called after a move has been taken back, with the event describing that move as it was made.
+   * The game already stands as it did before the move. The default ignores undos.
+   */
+  default void moveUndone(MoveEvent e) {}
+}
@@ -0,0 +1,129 @@
+package com.sosproject;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Memory-mapped opening book written by {@link OpeningBookBuilder}: self-play statistics per
+ * position and move, sorted by position so a lookup is a binary search over the mapped file.
+ * The book lives outside the Java heap and lookups allocate nothing, so even a very large book
+ * adds nothing for the GC to trace.
+ *
+ * <pre>
+ *   "SOSBK1" size:u8 mode:u8 entries:u64 plies:u32 0:u32
+ *   entry*   position:i64 move:i32 games:i32 points:i32     sorted by position, then move
+ * </pre>
+ * Positions are {@link SosGameBase#getCanonicalHash()} and moves {@code cell * 2 + (O ? 1 : 0)} in
+ * the canonical orientation, so the symmetric variants of a position share their entries.
+ * Points are 2 per win and 1 per draw for the side that made the move.
+ */
+public final class OpeningBook implements Closeable {
+  static final byte[] MAGIC = "SOSBK1".getBytes(StandardCharsets.US_ASCII);
+  static final int HEADER = 24;
+  static final int ENTRY = 20;
+  /** Largest board a book can describe, since the header stores the size in one byte. */
+  public static final int MAX_SIZE = 255;
+  /** Entries per mapping; a single mapping is limited to 2 GB. */
+  private static final int SEGMENT_SHIFT = 25;
+  private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer[] segments;
+  private final int size;
+  private final GameMode mode;
+  private final long entries;
+  private final int plies;
+
+  private OpeningBook(FileChannel channel, MappedByteBuffer[] segments, int size, GameMode mode, long entries, int plies) {
+    this.channel = channel;
+    this.segments = segments;
+    this.size = size;
+    this.mode = mode;
+    this.entries = entries;
+    this.plies = plies;
+  }
+
+  public static OpeningBook open(Path path) throws IOException {
+    FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      if (ch.size() < HEADER) throw new IOException("Not an opening book");
+      MappedByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+      byte[] magic = new byte[MAGIC.length];
+      head.get(0, magic);
+      if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not an opening book");
+      int size = head.get(6) & 0xFF, mode = head.get(7);
+      long entries = head.getLong(8);
+      int plies = head.getInt(16);
+      if (size < SosGameBase.MIN_SIZE || size > MAX_SIZE || mode < 0 || mode >= GameMode.values().length || entries < 0
+          || ch.size() != HEADER + entries * ENTRY) {
+        throw new IOException("Corrupt opening book header");
+      }
+      int count = (int) ((entries + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+      MappedByteBuffer[] segments = new MappedByteBuffer[count];
+      for (int k = 0; k < count; k++) {
+        long first = (long) k << SEGMENT_SHIFT;
+        long n = Math.min(1L << SEGMENT_SHIFT, entries - first);
+        segments[k] = ch.map(FileChannel.MapMode.READ_ONLY, HEADER + first * ENTRY, n * ENTRY);
+      }
+      return new OpeningBook(ch, segments, size, GameMode.values()[mode], entries, plies);
+    } catch (IOException | RuntimeException e) {
+      ch.close();
+      throw e instanceof IOException io ? io : new IOException("Invalid opening book: " + e.getMessage(), e);
+    }
+  }
+
+  public int getSize() { return size; }
+  public GameMode getMode() { return mode; }
+  public long getEntryCount() { return entries; }
+  /** How many plies into each game the builder recorded. */
+  public int getPlies() { return plies; }
+
+  /**
+   * The book move with the best points per game among those played at least {@code minGames}
+   * times, as {@code cell * 2 + (O ? 1 : 0)} in {@code g}'s orientation; -1 if there is none.
+   */
+  public int bestMove(SosGameBase g, int minGames) {
+    if (g.getSize() != size || g.getMode() != mode || g.getMoveCount() >= plies) return -1;
+    long key = g.getCanonicalHash();
+    long i = lowerBound(key);
+    int best = -1, bestGames = 0, bestPoints = 0;
+    for (; i < entries && position(i) == key; i++) {
+      int games = games(i), points = points(i);
+      if (games < minGames) continue;
+      // points / games > bestPoints / bestGames, or equal with more games
+      long lhs = (long) points * bestGames, rhs = (long) bestPoints * games;
+      if (best < 0 || lhs > rhs || (lhs == rhs && games > bestGames)) {
+        best = move(i);
+        bestGames = games;
+        bestPoints = points;
+      }
+    }
+    if (best < 0) return -1;
+    int cell = best >>> 1;
+    int back = Symmetry.inverse(g.canonicalTransform());
+    return Symmetry.apply(back, size, cell / size, cell % size) << 1 | (best & 1);
+  }
+
+  private long lowerBound(long key) {
+    long lo = 0, hi = entries;
+    while (lo < hi) {
+      long mid = (lo + hi) >>> 1;
+      if (position(mid) < key) lo = mid + 1; else hi = mid;
+    }
+    return lo;
+  }
+
+  long position(long i) { return segment(i).getLong(offset(i)); }
+  int move(long i) { return segment(i).getInt(offset(i) + 8); }
+  int games(long i) { return segment(i).getInt(offset(i) + 12); }
+  int points(long i) { return segment(i).getInt(offset(i) + 16); }
+
+  private MappedByteBuffer segment(long i) { return segments[(int) (i >>> SEGMENT_SHIFT)]; }
+  private static int offset(long i) { return (int) (i & SEGMENT_MASK) * ENTRY; }
+
+  @Override public void close() throws IOException { channel.close(); }
+}
@@ -0,0 +1,253 @@
+package com.sosproject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.function.LongFunction;
+
+/**
+ * Builds an {@link OpeningBook} from self-play. Every game plays a strategy against itself from
+ * the empty board; each of the first {@code plies} moves is credited with the final result from
+ * its mover's side. Workers are seeded as in {@link TournamentRunner}, so a build is reproducible
+ * for a given thread count.
+ *
+ * <pre>java -cp target/classes com.sosproject.OpeningBookBuilder --size 8 --mode GENERAL \
+ *     --games 20000 --plies 10 --strategy mcts:20 --out general8.book</pre>
+ */
+public class OpeningBookBuilder {
+  private final int size;
+  private final GameMode mode;
+  private final LongFunction<Strategy> strategy;
+  private final int plies;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private long seed = 1234L;
+  private double explore = 0.1;
+
+  public OpeningBookBuilder(int size, GameMode mode, LongFunction<Strategy> strategy, int plies) {
+    if (mode == null || strategy == null) throw new IllegalArgumentException("Mode and strategy are required");
+    if (plies < 1) throw new IllegalArgumentException("Need at least one ply");
+    if (size > OpeningBook.MAX_SIZE) throw new IllegalArgumentException("Opening books go up to " + OpeningBook.MAX_SIZE + "x" + OpeningBook.MAX_SIZE);
+    SosGames.create(size, mode); // validates the size
+    this.size = size;
+    this.mode = mode;
+    this.strategy = strategy;
+    this.plies = plies;
+  }
+
+  public OpeningBookBuilder threads(int threads) {
+    if (threads < 1) throw new IllegalArgumentException("Need at least one thread");
+    this.threads = threads;
+    return this;
+  }
+
+  public OpeningBookBuilder seed(long seed) { this.seed = seed; return this; }
+
+  /** Chance of a random move within the book plies, so the book covers more than one line. */
+  public OpeningBookBuilder explore(double explore) {
+    if (explore < 0 || explore > 1) throw new IllegalArgumentException("Exploration must be 0..1");
+    this.explore = explore;
+    return this;
+  }
+
+  /** Plays {@code games} games and writes the book; returns the number of entries. */
+  public long build(long games, Path out) throws IOException, InterruptedException {
+    if (games < 0) throw new IllegalArgumentException("Games cannot be negative");
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    Stats total;
+    try {
+      List<Future<Stats>> futures = new ArrayList<>(threads);
+      for (int w = 0; w < threads; w++) {
+        int worker = w;
+        futures.add(pool.submit(() -> playShare(worker, games)));
+      }
+      total = new Stats();
+      for (Future<Stats> f : futures) {
+        try {
+          total.addAll(f.get());
+        } catch (ExecutionException e) {
+          throw new IllegalStateException("Book worker failed", e.getCause());
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return write(total, out);
+  }
+
+  private Stats playShare(int worker, long games) {
+    long workerSeed = seed * 0x9E3779B97F4A7C15L + worker;
+    try (Strategy s = strategy.apply(workerSeed)) {
+      return playShare(worker, games, s);
+    }
+  }
+
+  private Stats playShare(int worker, long games, Strategy s) {
+    long workerSeed = seed * 0x9E3779B97F4A7C15L + worker;
+    Strategy random = new RandomStrategy(workerSeed ^ 0x5DEECE66DL);
+    Random rng = new Random(workerSeed);
+    Stats stats = new Stats();
+    long[] keys = new long[plies];
+    int[] moves = new int[plies];
+    boolean[] moverA = new boolean[plies];
+    SosGameBase g = SosGames.create(size, mode);
+    for (long i = worker; i < games; i += threads) {
+      g.resetBoard();
+      int recorded = 0;
+      while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+        boolean inBook = g.getMoveCount() < plies;
+        Move m = (inBook && rng.nextDouble() < explore ? random : s).choose(g);
+        if (m == null) throw new IllegalStateException("Strategy returned no move in a running game");
+        if (inBook) {
+          keys[recorded] = g.getCanonicalHash();
+          int cell = Symmetry.apply(g.canonicalTransform(), size, m.row(), m.col());
+          moves[recorded] = cell << 1 | (m.letter() == SosGameBase.Cell.O ? 1 : 0);
+          moverA[recorded++] = g.isPlayerATurn();
+        }
+        g.makeMove(m);
+      }
+      SosGameBase.Status result = g.getStatus();
+      for (int k = 0; k < recorded; k++) {
+        int points = result == SosGameBase.Status.DRAW ? 1
+            : (result == SosGameBase.Status.PLAYER_A_WON) == moverA[k] ? 2 : 0;
+        stats.add(keys[k], moves[k], 1, points);
+      }
+    }
+    return stats;
+  }
+
+  private long write(Stats stats, Path out) throws IOException {
+    int n = stats.compact();
+    stats.sort(0, n - 1);
+    try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer b = ByteBuffer.allocate(OpeningBook.ENTRY * 4096);
+      b.put(OpeningBook.MAGIC).put((byte) size).put((byte) mode.ordinal()).putLong(n).putInt(plies).putInt(0);
+      for (int i = 0; i < n; i++) {
+        if (b.remaining() < OpeningBook.ENTRY) drain(ch, b);
+        b.putLong(stats.keys[i]).putInt(stats.moves[i]).putInt(stats.games[i]).putInt(stats.points[i]);
+      }
+      drain(ch, b);
+    }
+    return n;
+  }
+
+  private static void drain(FileChannel ch, ByteBuffer b) throws IOException {
+    b.flip();
+    while (b.hasRemaining()) ch.write(b);
+    b.clear();
+  }
+
+  /** Open-addressed (position, move) -> games, points table; compacted and sorted for writing. */
+  static final class Stats {
+    long[] keys = new long[1 << 12];
+    int[] moves = new int[1 << 12];
+    int[] games = new int[1 << 12];
+    int[] points = new int[1 << 12];
+    private int count;
+
+    void add(long key, int move, int g, int p) {
+      if (count * 2 >= keys.length) grow();
+      int mask = keys.length - 1;
+      int i = (int) SosGameBase.zobrist((int) (key ^ key >>> 32) * 31 + move) & mask;
+      while (games[i] != 0 && (keys[i] != key || moves[i] != move)) i = (i + 1) & mask;
+      if (games[i] == 0) {
+        keys[i] = key;
+        moves[i] = move;
+        count++;
+      }
+      games[i] += g;
+      points[i] += p;
+    }
+
+    void addAll(Stats other) {
+      for (int i = 0; i < other.keys.length; i++) {
+        if (other.games[i] != 0) add(other.keys[i], other.moves[i], other.games[i], other.points[i]);
+      }
+    }
+
+    private void grow() {
+      long[] k = keys;
+      int[] m = moves, g = games, p = points;
+      keys = new long[k.length * 2];
+      moves = new int[k.length * 2];
+      games = new int[k.length * 2];
+      points = new int[k.length * 2];
+      count = 0;
+      for (int i = 0; i < k.length; i++) if (g[i] != 0) add(k[i], m[i], g[i], p[i]);
+    }
+
+    /** Moves the used slots to the front, ending the table's use as a hash table; returns their count. */
+    int compact() {
+      int n = 0;
+      for (int i = 0; i < keys.length; i++) {
+        if (games[i] == 0) continue;
+        keys[n] = keys[i];
+        moves[n] = moves[i];
+        games[n] = games[i];
+        points[n] = points[i];
+        n++;
+      }
+      return n;
+    }
+
+    /** Quicksort of [lo, hi] by position, then move; primitive so large books sort without boxing. */
+    void sort(int lo, int hi) {
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        long pk = keys[mid];
+        int pm = moves[mid];
+        int i = lo, j = hi;
+        while (i <= j) {
+          while (less(i, pk, pm)) i++;
+          while (greater(j, pk, pm)) j--;
+          if (i <= j) swap(i++, j--);
+        }
+        // Recurse into the smaller side so the stack stays logarithmic.
+        if (j - lo < hi - i) { sort(lo, j); lo = i; }
+        else { sort(i, hi); hi = j; }
+      }
+    }
+
+    private boolean less(int i, long k, int m) { return keys[i] < k || (keys[i] == k && moves[i] < m); }
+    private boolean greater(int i, long k, int m) { return keys[i] > k || (keys[i] == k && moves[i] > m); }
+
+    private void swap(int a, int b) {
+      long k = keys[a]; keys[a] = keys[b]; keys[b] = k;
+      int t = moves[a]; moves[a] = moves[b]; moves[b] = t;
+      t = games[a]; games[a] = games[b]; games[b] = t;
+      t = points[a]; points[a] = points[b]; points[b] = t;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int size = 8, plies = 10;
+    GameMode mode = GameMode.GENERAL;
+    long games = 10_000, seed = 1234L;
+    String spec = "mcts:20";
+    Integer threads = null;
+    Path out = Path.of("opening.book");
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String v = args[i + 1];
+      switch (args[i]) {
+        case "--size" -> size = Integer.parseInt(v);
+        case "--mode" -> mode = GameMode.valueOf(v.toUpperCase());
+        case "--games" -> games = Long.parseLong(v);
+        case "--plies" -> plies = Integer.parseInt(v);
+        case "--seed" -> seed = Long.parseLong(v);
+        case "--threads" -> threads = Integer.parseInt(v);
+        case "--strategy" -> spec = v;
+        case "--out" -> out = Path.of(v);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+    OpeningBookBuilder builder = new OpeningBookBuilder(size, mode, TournamentRunner.parseStrategy(spec), plies).seed(seed);
+    if (threads != null) builder.threads(threads);
+    long start = System.nanoTime();
+    long entries = builder.build(games, out);
+    System.out.printf("%d entries from %d games in %.1f s -> %s%n", entries, games, (System.nanoTime() - start) / 1e9, out);
+  }
+}
@@ -0,0 +1,140 @@
+package com.sosproject;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+/**
+ * Perfect-play values and moves for every position of one board size and mode, as written by
+ * {@link RetrogradeSolver}. The file is memory-mapped and looked up by position, so a query costs
+ * one symmetry reduction and one read.
+ *
+ * <pre>
+ *   "SOSDB1" size:u8 mode:u8 nextLayer:i32 0:u32
+ *   entry[3^(size*size)]   value:i8 move:u8, big-endian
+ * </pre>
+ * Positions are indexed in base 3, cell {@code i} contributing {@code digit * 3^i} with digits
+ * 0 empty, 1 S, 2 O. Only the smallest index of each symmetry class is filled in. The move byte is
+ * {@code 0x80 | cell * 2 + (O ? 1 : 0)}, or 0 where no move is left. {@code nextLayer} is the
+ * filled-cell count the solver will do next, -1 once every layer is solved.
+ */
+public final class PerfectPlayDatabase implements Closeable {
+  /** Largest board with a database: 3^25 positions of a 5x5 board could not be indexed or stored. */
+  public static final int MAX_SIZE = 4;
+  /** Simple-mode value of a win on the next move; each further ply to the win costs one. */
+  public static final int SIMPLE_WIN = 100;
+
+  static final byte[] MAGIC = "SOSDB1".getBytes(StandardCharsets.US_ASCII);
+  static final int HEADER = 16;
+  static final int NEXT_LAYER = 8;
+  static final int HAS_MOVE = 0x80;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer buf;
+  private final int size;
+  private final GameMode mode;
+  private final int[] pow3;
+  private final int[][] perms, inverses;
+
+  private PerfectPlayDatabase(FileChannel channel, MappedByteBuffer buf, int size, GameMode mode) {
+    this.channel = channel;
+    this.buf = buf;
+    this.size = size;
+    this.mode = mode;
+    this.pow3 = powersOf3(size * size);
+    this.perms = Symmetry.perms(size);
+    this.inverses = Symmetry.inverses(size);
+  }
+
+  /** Opens a completely solved database. */
+  public static PerfectPlayDatabase open(Path path) throws IOException {
+    FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      MappedByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(ch.size(), HEADER));
+      int[] sm = readHeader(head);
+      if (head.getInt(NEXT_LAYER) != -1) throw new IOException("Database is not completely solved; resume the solver");
+      long bytes = fileBytes(sm[0]);
+      if (ch.size() != bytes) throw new IOException("Database has the wrong length for its size");
+      return new PerfectPlayDatabase(ch, ch.map(FileChannel.MapMode.READ_ONLY, 0, bytes), sm[0], GameMode.values()[sm[1]]);
+    } catch (IOException | RuntimeException e) {
+      ch.close();
+      throw e instanceof IOException io ? io : new IOException("Invalid database: " + e.getMessage(), e);
+    }
+  }
+
+  public int getSize() { return size; }
+  public GameMode getMode() { return mode; }
+
+  /** Whether this database answers for {@code g}'s board size and mode. */
+  public boolean covers(SosGameBase g) {
+    return g.getSize() == size && g.getMode() == mode;
+  }
+
+  /**
+   * Value of the position for the side to move under perfect play. General: the net points still
+   * to be scored, the mover's minus the opponent's. Simple: {@code SIMPLE_WIN - p} for a win on
+   * the {@code p}-th ply from now, its negation for a loss, 0 for a draw.
+   */
+  public int value(SosGameBase g) {
+    return buf.get(entryAt(g, null));
+  }
+
+  /** A perfect move for the side to move, or null once the game is over. */
+  public Move bestMove(SosGameBase g) {
+    if (g.getStatus() != SosGameBase.Status.IN_PROGRESS) return null;
+    int[] transform = new int[1];
+    int move = buf.get(entryAt(g, transform) + 1) & 0xFF;
+    if ((move & HAS_MOVE) == 0) return null;
+    int cell = inverses[transform[0]][(move & 0x7F) >>> 1];
+    return new Move(cell / size, cell % size, (move & 1) == 0 ? SosGameBase.Cell.S : SosGameBase.Cell.O);
+  }
+
+  /** Byte offset of the entry for {@code g}'s symmetry class; stores the transform used in {@code transform[0]}. */
+  private int entryAt(SosGameBase g, int[] transform) {
+    if (!covers(g)) throw new IllegalArgumentException("Database is for " + size + "x" + size + " " + mode);
+    int cells = size * size;
+    int best = Integer.MAX_VALUE, bestT = 0;
+    for (int t = 0; t < Symmetry.COUNT; t++) {
+      int[] p = perms[t];
+      int idx = 0;
+      for (int cell = 0; cell < cells; cell++) {
+        SosGameBase.Cell c = g.getCell(cell / size, cell % size);
+        if (c != SosGameBase.Cell.EMPTY) idx += (c == SosGameBase.Cell.S ? 1 : 2) * pow3[p[cell]];
+      }
+      if (idx < best) { best = idx; bestT = t; }
+    }
+    if (transform != null) transform[0] = bestT;
+    return HEADER + 2 * best;
+  }
+
+  // ---- Format helpers shared with the solver ----
+
+  static int[] powersOf3(int cells) {
+    int[] p = new int[cells + 1];
+    p[0] = 1;
+    for (int i = 1; i <= cells; i++) p[i] = p[i - 1] * 3;
+    return p;
+  }
+
+  static long fileBytes(int size) {
+    return HEADER + 2L * powersOf3(size * size)[size * size];
+  }
+
+  /** Validates magic, size and mode; returns {size, mode ordinal}. */
+  static int[] readHeader(MappedByteBuffer head) throws IOException {
+    if (head.limit() < HEADER) throw new IOException("Not a perfect-play database");
+    byte[] magic = new byte[MAGIC.length];
+    head.get(0, magic);
+    if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a perfect-play database");
+    int size = head.get(MAGIC.length), mode = head.get(MAGIC.length + 1);
+    if (size < SosGameBase.MIN_SIZE || size > MAX_SIZE || mode < 0 || mode >= GameMode.values().length) {
+      throw new IOException("Invalid database header");
+    }
+    return new int[] { size, mode };
+  }
+
+  @Override public void close() throws IOException { channel.close(); }
+}
@@ -0,0 +1,32 @@
+package com.sosproject;
+
+import java.util.function.Consumer;
+
+/** Plays perfectly from a {@link PerfectPlayDatabase}, and defers to another strategy on boards it does not cover. */
+public class PerfectPlayStrategy implements Strategy {
+  private final PerfectPlayDatabase db;
+  private final Strategy fallback;
+
+  public PerfectPlayStrategy(PerfectPlayDatabase db, Strategy fallback) {
+    if (db == null || fallback == null) throw new IllegalArgumentException("Database and fallback are required");
+    this.db = db;
+    this.fallback = fallback;
+  }
+
+  @Override
+  public Move choose(SosGameBase game) {
+    if (game.getStatus() != SosGameBase.Status.IN_PROGRESS) return null;
+    return db.covers(game) ? db.bestMove(game) : fallback.choose(game);
+  }
+
+  @Override
+  public Move choose(SosGameBase game, SearchLimits limits, Consumer<SearchProgress> progress) {
+    if (game.getStatus() != SosGameBase.Status.IN_PROGRESS) return null;
+    return db.covers(game) ? db.bestMove(game) : fallback.choose(game, limits, progress);
+  }
+
+  @Override
+  public void close() {
+    fallback.close();
+  }
+}
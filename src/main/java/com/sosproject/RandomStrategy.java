@@ -1,6 +1,5 @@
 package com.sosproject;
 
-import java.util.ArrayList;
 import java.util.Random;
 
 public class RandomStrategy implements Strategy {
@@ -10,14 +9,11 @@ public class RandomStrategy implements Strategy {
 
   @Override
   public Move choose(SosGameBase g) {
+    int empties = g.getEmptyCount();
+    if (empties == 0) return null;
     int n = g.getSize();
-    var empty = new ArrayList<int[]>();
-    for (int r=0;r<n;r++) for (int c=0;c<n;c++) {
-      if (g.isCellEmpty(r,c)) empty.add(new int[]{r,c});
-    }
-    if (empty.isEmpty()) return null;
-    int[] cell = empty.get(rng.nextInt(empty.size()));
+    int cell = g.getEmptyCell(rng.nextInt(empties));
     SosGameBase.Cell letter = rng.nextBoolean() ? SosGameBase.Cell.S : SosGameBase.Cell.O;
-    return new Move(cell[0], cell[1], letter);
+    return new Move(cell / n, cell % n, letter);
   }
 }
@@ -0,0 +1,54 @@
+package com.sosproject;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * Converts recordings between the SOSv1 text and SOSv2 binary formats by replaying them, so
+ * the per-move scores and status that only SOSv1 spells out are regenerated exactly.
+ *
+ * <pre>java -cp target/classes com.sosproject.RecordingConverter in.txt out.sos2</pre>
+ * The direction follows the input's format.
+ */
+public final class RecordingConverter {
+  private RecordingConverter() {}
+
+  public static void textToBinary(Path in, Path out) throws IOException {
+    try (RecordingReader r = GameReplayer.open(in); BinaryGameRecorder rec = new BinaryGameRecorder(out)) {
+      replay(r, rec);
+    }
+  }
+
+  public static void binaryToText(Path in, Path out) throws IOException {
+    try (RecordingReader r = GameReplayer.open(in); TextGameRecorder rec = new TextGameRecorder(out)) {
+      replay(r, rec);
+    }
+  }
+
+  /** Streams the moves across, so recordings of any length convert in constant memory. */
+  private static void replay(RecordingReader r, GameRecorder rec) throws IOException {
+    SosGameBase g = SosGames.create(r.getSize(), r.getMode());
+    rec.start(g, r.getPlayerA(), r.getPlayerB());
+    int index = 0;
+    while (r.next()) {
+      boolean wasPlayerA = g.isPlayerATurn();
+      try {
+        g.placeLetter(r.row(), r.col(), r.letter());
+      } catch (RuntimeException e) {
+        throw new IOException("Recording has an illegal move " + (index + 1) + ": " + e.getMessage(), e);
+      }
+      rec.recordMove(++index, wasPlayerA, r.row(), r.col(), r.letter(), g);
+    }
+    if (r.isFinished()) rec.finish(g);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("usage: RecordingConverter <in> <out>");
+      System.exit(2);
+    }
+    Path in = Path.of(args[0]), out = Path.of(args[1]);
+    if (BinaryGameReader.isBinary(in)) binaryToText(in, out);
+    else textToBinary(in, out);
+  }
+}
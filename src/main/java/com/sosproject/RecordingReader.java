@@ -0,0 +1,25 @@
+package com.sosproject;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads one recorded game move by move, without holding the moves in memory. Open one with
+ * {@link GameReplayer#open}; the format is detected from the file.
+ */
+public interface RecordingReader extends Closeable {
+  int getSize() throws IOException;
+  GameMode getMode() throws IOException;
+  PlayerType getPlayerA() throws IOException;
+  PlayerType getPlayerB() throws IOException;
+
+  /** Advances to the next move; false once the moves run out. */
+  boolean next() throws IOException;
+  int row();
+  int col();
+  SosGameBase.Cell letter();
+  boolean isPlayerA();
+
+  /** Whether the recording ended with a result; valid once {@link #next} has returned false. */
+  boolean isFinished();
+}
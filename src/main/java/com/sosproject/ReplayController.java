@@ -0,0 +1,88 @@
+package com.sosproject;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Random access over a recorded game for the replay viewer. Loading replays the moves once and
+ * keeps a {@link SosGameBase.Snapshot} every {@code keyframeEvery} plies; {@link #seek} then
+ * reaches any ply by undoing or redoing from the current position when it is close, or from the
+ * nearest keyframe otherwise, so a seek costs at most {@code keyframeEvery} moves whatever the
+ * game length.
+ */
+public class ReplayController {
+  public static final int DEFAULT_KEYFRAME_EVERY = 16;
+
+  private final int size;
+  private final int every;
+  private final Move[] moves;
+  private final boolean[] moverA;
+  private final SosGameBase.Snapshot[] keyframes; // keyframes[j] is the position after j * every moves
+  private final int[] plyOfCell;                  // ply that filled each cell, or moves.length if never
+  private SosGameBase game;
+
+  public ReplayController(GameReplayer.Loaded loaded) {
+    this(loaded, DEFAULT_KEYFRAME_EVERY);
+  }
+
+  /** @throws IllegalArgumentException if the recording contains an illegal move */
+  public ReplayController(GameReplayer.Loaded loaded, int keyframeEvery) {
+    if (keyframeEvery < 1) throw new IllegalArgumentException("Keyframe interval must be positive");
+    this.size = loaded.size;
+    this.every = keyframeEvery;
+    int n = loaded.moves.size();
+    this.moves = new Move[n];
+    this.moverA = new boolean[n];
+    this.keyframes = new SosGameBase.Snapshot[n / keyframeEvery + 1];
+    this.plyOfCell = new int[size * size];
+    Arrays.fill(plyOfCell, n);
+
+    game = SosGames.create(loaded.size, loaded.mode);
+    keyframes[0] = game.snapshot();
+    List<GameReplayer.MoveRec> recs = loaded.moves;
+    for (int i = 0; i < n; i++) {
+      GameReplayer.MoveRec r = recs.get(i);
+      moves[i] = new Move(r.row, r.col, r.letter);
+      moverA[i] = game.isPlayerATurn();
+      try {
+        game.makeMove(moves[i]);
+      } catch (RuntimeException e) {
+        throw new IllegalArgumentException("Recording has an illegal move " + (i + 1) + ": " + e.getMessage(), e);
+      }
+      plyOfCell[r.row * size + r.col] = i;
+      if ((i + 1) % keyframeEvery == 0) keyframes[(i + 1) / keyframeEvery] = game.snapshot();
+    }
+    seek(0);
+  }
+
+  public int getMoveCount() { return moves.length; }
+  public int getPly() { return game.getMoveCount(); }
+  /** The game at the current ply; treat it as read only. */
+  public SosGameBase game() { return game; }
+  public Move move(int index) { return moves[index]; }
+  public boolean isMoveByPlayerA(int index) { return moverA[index]; }
+
+  /** Index of the move that fills {@code cell} in the whole recording, or {@link #getMoveCount()} if none does. */
+  public int plyOfCell(int cell) { return plyOfCell[cell]; }
+
+  /** Moves the position to {@code ply} moves into the game, clamped to the recording. */
+  public void seek(int ply) {
+    int target = Math.max(0, Math.min(moves.length, ply));
+    int cur = game.getMoveCount();
+    if (target < cur && cur - target <= every) {
+      while (cur > target && game.canUndo()) {
+        game.unmakeMove();
+        cur--;
+      }
+    }
+    // Too far away, or behind the restored keyframe's history: start from the nearest keyframe.
+    int key = target / every;
+    if (cur > target || (target - cur > every && key * every > cur)) {
+      game = SosGameBase.restore(keyframes[key]);
+      cur = key * every;
+    }
+    while (cur < target) game.makeMove(moves[cur++]);
+  }
+
+  public void step(int delta) { seek(getPly() + delta); }
+}
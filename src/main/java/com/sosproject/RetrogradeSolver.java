@@ -0,0 +1,216 @@
+package com.sosproject;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Solves every position of a small board offline and writes a {@link PerfectPlayDatabase}.
+ *
+ * <p>A position's value depends only on the letters on the board: in Simple mode the mover to
+ * play follows from the board, and in General mode the points still to come do not depend on
+ * the points already scored. Every move fills a cell, so positions with {@code k} filled cells
+ * only lead to positions with {@code k + 1}. The solver therefore works backwards one layer of
+ * filled cells at a time, from the full board to the empty one, splitting each layer across a
+ * fork-join pool. Only the smallest index of each symmetry class is solved; children are looked
+ * up through their own class.
+ *
+ * <p>The database file is the checkpoint. After each layer the mapped file is forced to disk and
+ * then the header's next layer is advanced, so an interrupted solve resumes from the first
+ * unfinished layer.
+ *
+ * <pre>java -cp target/classes com.sosproject.RetrogradeSolver 4 SIMPLE simple4.sosdb [threads]</pre>
+ */
+public final class RetrogradeSolver {
+  private static final int CHUNK = 1 << 15;
+  private static final int S = 1, O = 2;
+
+  private final int size, cells, states;
+  private final GameMode mode;
+  private final Path file;
+  private final int[] pow3;
+  private final int[][] perms;
+  private final int[][] lines; // cell -> three cells of each line through it, flattened
+
+  public RetrogradeSolver(int size, GameMode mode, Path file) {
+    if (size < SosGameBase.MIN_SIZE || size > PerfectPlayDatabase.MAX_SIZE) {
+      throw new IllegalArgumentException("Databases cover sizes " + SosGameBase.MIN_SIZE + ".." + PerfectPlayDatabase.MAX_SIZE);
+    }
+    if (mode == null) throw new IllegalArgumentException("Mode cannot be null");
+    this.size = size;
+    this.cells = size * size;
+    this.mode = mode;
+    this.file = file;
+    this.pow3 = PerfectPlayDatabase.powersOf3(cells);
+    this.states = pow3[cells];
+    this.perms = Symmetry.perms(size);
+    LineTable table = LineTable.forSize(size);
+    this.lines = new int[cells][];
+    for (int cell = 0; cell < cells; cell++) {
+      int n = table.cellLineCount(cell);
+      lines[cell] = new int[n * 3];
+      for (int k = 0; k < n; k++) {
+        for (int j = 0; j < 3; j++) lines[cell][k * 3 + j] = table.lineCell(table.cellLine(cell, k), j);
+      }
+    }
+  }
+
+  /** Solves every remaining layer, resuming a partly solved file. */
+  public void solve(ForkJoinPool pool) throws IOException {
+    solveLayers(pool, Integer.MAX_VALUE);
+  }
+
+  /** Solves at most {@code maxLayers} more layers; returns whether the database is complete. */
+  boolean solveLayers(ForkJoinPool pool, int maxLayers) throws IOException {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      boolean fresh = ch.size() == 0;
+      MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, PerfectPlayDatabase.fileBytes(size));
+      if (fresh) {
+        buf.put(0, PerfectPlayDatabase.MAGIC);
+        buf.put(PerfectPlayDatabase.MAGIC.length, (byte) size);
+        buf.put(PerfectPlayDatabase.MAGIC.length + 1, (byte) mode.ordinal());
+        buf.putInt(PerfectPlayDatabase.NEXT_LAYER, cells);
+        buf.force();
+      } else {
+        int[] sm = PerfectPlayDatabase.readHeader(buf);
+        if (sm[0] != size || sm[1] != mode.ordinal()) throw new IOException("Database file is for a different size or mode");
+      }
+      int next = buf.getInt(PerfectPlayDatabase.NEXT_LAYER);
+      for (int done = 0; next >= 0 && done < maxLayers; done++) {
+        pool.invoke(new Layer(buf, next, 0, states));
+        buf.force();
+        buf.putInt(PerfectPlayDatabase.NEXT_LAYER, --next);
+        buf.force();
+      }
+      return next < 0;
+    }
+  }
+
+  private final class Layer extends RecursiveAction {
+    private final MappedByteBuffer buf;
+    private final int filled, lo, hi;
+
+    Layer(MappedByteBuffer buf, int filled, int lo, int hi) {
+      this.buf = buf; this.filled = filled; this.lo = lo; this.hi = hi;
+    }
+
+    @Override protected void compute() {
+      if (hi - lo > CHUNK) {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new Layer(buf, filled, lo, mid), new Layer(buf, filled, mid, hi));
+        return;
+      }
+      int[] d = new int[cells];
+      int count = 0;
+      for (int i = 0, v = lo; i < cells; i++, v /= 3) {
+        d[i] = v % 3;
+        if (d[i] != 0) count++;
+      }
+      int[] t = new int[Symmetry.COUNT];
+      for (int idx = lo; idx < hi; idx++) {
+        if (count == filled) solve(buf, idx, d, t);
+        // Advance the base-3 digits to idx + 1, keeping the filled count.
+        for (int i = 0; i < cells; i++) {
+          if (d[i] == 2) { d[i] = 0; count--; continue; }
+          if (d[i]++ == 0) count++;
+          break;
+        }
+      }
+    }
+  }
+
+  private void solve(MappedByteBuffer buf, int idx, int[] d, int[] t) {
+    t[0] = idx;
+    for (int s = 1; s < Symmetry.COUNT; s++) {
+      int[] p = perms[s];
+      int v = 0;
+      for (int c = 0; c < cells; c++) v += d[c] * pow3[p[c]];
+      if (v < idx) return; // another member of the class is the one solved
+      t[s] = v;
+    }
+    int at = PerfectPlayDatabase.HEADER + 2 * idx;
+    if (mode == GameMode.SIMPLE && hasSOS(d)) { // game already over; never looked up
+      buf.putShort(at, (short) 0);
+      return;
+    }
+    int best = Integer.MIN_VALUE, bestMove = 0;
+    search:
+    for (int c = 0; c < cells; c++) {
+      if (d[c] != 0) continue;
+      for (int letter = S; letter <= O; letter++) {
+        int gain = completes(d, c, letter);
+        int v;
+        if (mode == GameMode.SIMPLE) {
+          if (gain > 0) {
+            best = PerfectPlayDatabase.SIMPLE_WIN - 1;
+            bestMove = c << 1 | (letter == O ? 1 : 0);
+            break search;
+          }
+          int cv = childValue(buf, t, c, letter);
+          v = cv > 0 ? -(cv - 1) : cv < 0 ? -cv - 1 : 0; // one ply further from the result
+        } else {
+          int cv = childValue(buf, t, c, letter);
+          v = gain > 0 ? gain + cv : -cv; // scoring keeps the turn
+        }
+        if (v > best) {
+          best = v;
+          bestMove = c << 1 | (letter == O ? 1 : 0);
+        }
+      }
+    }
+    if (best == Integer.MIN_VALUE) buf.putShort(at, (short) 0); // full board
+    else buf.putShort(at, (short) (best << 8 | PerfectPlayDatabase.HAS_MOVE | bestMove));
+  }
+
+  /** Stored value of the position after {@code letter} goes on {@code cell}, via its symmetry class. */
+  private int childValue(MappedByteBuffer buf, int[] t, int cell, int letter) {
+    int min = Integer.MAX_VALUE;
+    for (int s = 0; s < Symmetry.COUNT; s++) min = Math.min(min, t[s] + letter * pow3[perms[s][cell]]);
+    return buf.get(PerfectPlayDatabase.HEADER + 2 * min);
+  }
+
+  private int completes(int[] d, int cell, int letter) {
+    int[] l = lines[cell];
+    int count = 0;
+    for (int k = 0; k < l.length; k += 3) {
+      int a = l[k], b = l[k + 1], c = l[k + 2];
+      if ((a == cell ? letter : d[a]) == S && (b == cell ? letter : d[b]) == O && (c == cell ? letter : d[c]) == S) count++;
+    }
+    return count;
+  }
+
+  private boolean hasSOS(int[] d) {
+    for (int cell = 0; cell < cells; cell++) {
+      if (d[cell] != O) continue;
+      int[] l = lines[cell];
+      for (int k = 0; k < l.length; k += 3) {
+        if (l[k + 1] == cell && d[l[k]] == S && d[l[k + 2]] == S) return true;
+      }
+    }
+    return false;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 3) {
+      System.err.println("usage: RetrogradeSolver <size> <SIMPLE|GENERAL> <file> [threads]");
+      System.exit(2);
+    }
+    int size = Integer.parseInt(args[0]);
+    GameMode mode = GameMode.valueOf(args[1].toUpperCase());
+    int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+    long start = System.nanoTime();
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      new RetrogradeSolver(size, mode, Path.of(args[2])).solve(pool);
+    } finally {
+      pool.shutdown();
+    }
+    System.out.printf("Solved %dx%d %s in %.1f s%n", size, size, mode, (System.nanoTime() - start) / 1e9);
+    try (PerfectPlayDatabase db = PerfectPlayDatabase.open(Path.of(args[2]))) {
+      System.out.println("Value of the empty board for the first player: " + db.value(SosGames.create(size, mode)));
+    }
+  }
+}
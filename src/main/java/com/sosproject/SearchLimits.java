@@ -0,0 +1,33 @@
+package com.sosproject;
+
+/**
+ * When an anytime search must stop: at a deadline on the {@link System#nanoTime()} clock, after a
+ * number of nodes, or at whichever comes first. Deadlines are absolute, so a caller can start the
+ * clock when a move is requested and time spent waiting for a search thread counts against it.
+ * What a node is depends on the engine: alpha-beta counts positions searched, MCTS playouts.
+ *
+ * @param deadline {@code System.nanoTime()} value to stop at, or {@link #NO_DEADLINE}
+ * @param maxNodes nodes to stop after, or {@link Long#MAX_VALUE} for no limit
+ */
+public record SearchLimits(long deadline, long maxNodes) {
+  public static final long NO_DEADLINE = Long.MAX_VALUE;
+  /** Stops only on an interrupt, or when the engine has nothing left to search. */
+  public static final SearchLimits NONE = new SearchLimits(NO_DEADLINE, Long.MAX_VALUE);
+
+  public SearchLimits {
+    if (maxNodes < 0) throw new IllegalArgumentException("Node limit cannot be negative");
+  }
+
+  /** Stops {@code millis} from now. */
+  public static SearchLimits ofMillis(long millis) {
+    if (millis < 0) throw new IllegalArgumentException("Time limit cannot be negative");
+    return new SearchLimits(System.nanoTime() + millis * 1_000_000L, Long.MAX_VALUE);
+  }
+
+  public static SearchLimits ofNodes(long maxNodes) { return new SearchLimits(NO_DEADLINE, maxNodes); }
+
+  public SearchLimits withNodes(long maxNodes) { return new SearchLimits(deadline, maxNodes); }
+
+  /** Whether the deadline has passed at {@code now}; safe across {@code nanoTime} wraparound. */
+  public boolean expired(long now) { return deadline != NO_DEADLINE && now - deadline >= 0; }
+}
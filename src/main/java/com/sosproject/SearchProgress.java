@@ -0,0 +1,19 @@
+package com.sosproject;
+
+import java.util.List;
+
+/**
+ * A snapshot of an anytime search, reported as it deepens.
+ *
+ * @param depth plies fully searched; for MCTS, the length of the principal variation
+ * @param nodes nodes searched so far, counted as in {@link SearchLimits}
+ * @param nanos time since the search started
+ * @param value the engine's score of the position for the side to move: net SOS lines still to
+ *              gain for alpha-beta, the expected result in thousandths for MCTS
+ * @param pv    the line the engine expects, starting with its best move; may be empty
+ */
+public record SearchProgress(int depth, long nodes, long nanos, int value, List<Move> pv) {
+  public SearchProgress {
+    pv = List.copyOf(pv);
+  }
+}
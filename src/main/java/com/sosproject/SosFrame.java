@@ -3,9 +3,11 @@ package com.sosproject;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.IOException;
 import java.nio.file.*;
-import java.util.List;
+import java.util.concurrent.CancellationException;
 
 public class SosFrame extends JFrame {
   private SosGameBase game;
@@ -21,24 +23,53 @@ public class SosFrame extends JFrame {
 
   private final JComboBox<PlayerType> playerATypeBox = new JComboBox<>(PlayerType.values());
   private final JComboBox<PlayerType> playerBTypeBox = new JComboBox<>(PlayerType.values());
-  private Strategy aiStrategy = new RandomStrategy();
+  private static final String[] ENGINES = { "Random", "Alpha-beta", "MCTS" };
+  private static final String[] THINK_TIMES = { "0.25 s", "0.5 s", "1 s", "2 s", "5 s" };
+  private static final long[] THINK_MILLIS = { 250, 500, 1000, 2000, 5000 };
+  private final JComboBox<String> engineBox = new JComboBox<>(ENGINES);
+  private final JComboBox<String> thinkBox = new JComboBox<>(THINK_TIMES);
+  private final JCheckBox ponderCheck = new JCheckBox("Ponder", true);
+  private ComputerPlayer computer;
 
   private final JCheckBox recordCheck = new JCheckBox("Record game");
   private final JButton replayButton = new JButton("Replay");
+  private final JButton undoButton = new JButton("Undo");
 
-  private TextGameRecorder recorder;
+  private GameRecorder recorder;
+  private AsyncRecordingService recordingService;
   private boolean isReplaying = false;
-  private int moveIndex = 0;
-
-  private JPanel boardPanel;
-  private JButton[][] cellButtons;
+  private boolean aiThinking = false;
+
+  private BoardView boardView;
+  private final int[] lineCells = new int[16]; // SosGameBase#sosLinesAt output, for replays
+
+  // Replay viewer
+  private static final String[] SPEEDS = { "0.5x", "1x", "2x", "4x", "Max" };
+  private static final int[] SPEED_DELAYS = { 900, 450, 225, 110, 16 };
+  private ReplayController replay;
+  private JPanel replayBar;
+  private final JSlider replaySlider = new JSlider(0, 0, 0);
+  private final JButton playButton = new JButton("Play");
+  private final JComboBox<String> speedBox = new JComboBox<>(SPEEDS);
+  private final Timer replayTimer = new Timer(SPEED_DELAYS[1], e -> onReplayTick());
+  private boolean syncingSlider;
 
   public SosFrame() {
     super("SOS");
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+    // The recording writer is a daemon thread: write out what it still holds before the JVM exits.
+    addWindowListener(new WindowAdapter() {
+      @Override public void windowClosing(WindowEvent e) {
+        closeRecorderQuietly();
+        if (recordingService != null) {
+          try { recordingService.close(); } catch (IOException ignored) {}
+        }
+      }
+    });
     setMinimumSize(new Dimension(760, 560));
 
     for (int i = 3; i <= 10; i++) boardSizeBox.addItem(i);
+    for (int i : new int[] { 12, 15, 20, 30, 50, 100 }) boardSizeBox.addItem(i);
     boardSizeBox.setSelectedItem(5);
     modeBox.setSelectedItem(GameMode.SIMPLE);
 
@@ -90,9 +121,23 @@ public class SosFrame extends JFrame {
     p.add(replayButton, gc);
 
     gc.gridx = 16;
+    undoButton.addActionListener(this::onUndo);
+    p.add(undoButton, gc);
+
+    gc.gridx = 17;
     newGameButton.addActionListener(this::onNewGame);
     p.add(newGameButton, gc);
 
+    // Second row: the computer player, applied from the next new game.
+    gc.gridy = 1;
+    gc.gridx = 0; p.add(new JLabel("Engine:"), gc);
+    gc.gridx = 1; p.add(engineBox, gc);
+    gc.gridx = 2; p.add(new JLabel("Time:"), gc);
+    gc.gridx = 3;
+    thinkBox.setSelectedIndex(2);
+    p.add(thinkBox, gc);
+    gc.gridx = 4; p.add(ponderCheck, gc);
+
     return p;
   }
 
@@ -102,14 +147,39 @@ public class SosFrame extends JFrame {
     maybeStartAiTurn();
   }
 
+  private void onUndo(ActionEvent e) {
+    // A recording cannot take moves back, so undo is only offered for unrecorded games.
+    if (isReplaying || aiThinking || recorder != null || !game.canUndo()) return;
+    computer.cancel(); // a ponder search is for a position that is about to go away
+
+    // Take back computer replies too, so it is a human's turn again afterwards.
+    do {
+      game.unmakeMove(); // the board view is cleared by the undo event
+    } while (game.canUndo() && currentPlayerType() == PlayerType.COMPUTER);
+
+    updateLabels();
+    maybeStartAiTurn();
+  }
+
+  private PlayerType currentPlayerType() {
+    return game.isPlayerATurn() ? (PlayerType) playerATypeBox.getSelectedItem()
+                                : (PlayerType) playerBTypeBox.getSelectedItem();
+  }
+
   private void startNewGame() {
     closeRecorderQuietly();
-    isReplaying = false;
-    moveIndex = 0;
+    stopReplay();
+    if (computer != null) computer.close();
+    computer = newComputerPlayer();
+    aiThinking = false;
 
     int size = (Integer) boardSizeBox.getSelectedItem();
     GameMode mode = (GameMode) modeBox.getSelectedItem();
     game = SosGames.create(size, mode);
+    game.addMoveListener(new MoveListener() {
+      @Override public void moveMade(MoveEvent e) { onMoveMade(e); }
+      @Override public void moveUndone(MoveEvent e) { boardView.clearCell(e.getRow(), e.getCol()); }
+    });
     updateLabels();
     setBoardEnabled(true);
 
@@ -119,7 +189,8 @@ public class SosFrame extends JFrame {
       if (fc.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
         try {
           Path p = fc.getSelectedFile().toPath();
-          recorder = new TextGameRecorder(p);
+          // ".sos2" selects the compact binary format; anything else gets the SOSv1 text format.
+          recorder = p.toString().endsWith(".sos2") ? new BinaryGameRecorder(p) : recordingService().recorder(p);
           recorder.start(game, (PlayerType) playerATypeBox.getSelectedItem(), (PlayerType) playerBTypeBox.getSelectedItem());
         } catch (IOException ex) {
           JOptionPane.showMessageDialog(this, "Failed to start recording: " + ex.getMessage(), "I/O Error", JOptionPane.ERROR_MESSAGE);
@@ -133,24 +204,12 @@ public class SosFrame extends JFrame {
   }
 
   private void rebuildBoardUI() {
-    if (boardPanel != null) remove(boardPanel);
-
-    int n = game.getSize();
-    boardPanel = new JPanel(new GridLayout(n, n, 2, 2));
-    cellButtons = new JButton[n][n];
-
-    for (int r = 0; r < n; r++) {
-      for (int c = 0; c < n; c++) {
-        JButton b = new JButton("");
-        b.setFont(b.getFont().deriveFont(Font.BOLD, 18f));
-        final int rr = r, cc = c;
-        b.addActionListener(evt -> onCellClicked(rr, cc));
-        cellButtons[r][c] = b;
-        boardPanel.add(b);
-      }
-    }
+    if (boardView != null) remove(boardView);
 
-    add(boardPanel, BorderLayout.CENTER);
+    boardView = new BoardView(game.getSize());
+    boardView.setCellListener(this::onCellClicked);
+
+    add(boardView, BorderLayout.CENTER);
     revalidate();
     repaint();
   }
@@ -170,14 +229,7 @@ public class SosFrame extends JFrame {
         JOptionPane.showMessageDialog(this, "That cell is already taken.", "Invalid Move", JOptionPane.WARNING_MESSAGE);
         return;
       }
-      boolean wasPlayerA = game.isPlayerATurn();
       game.placeLetter(row, col, letter);
-      setCellText(row, col, letter, wasPlayerA);
-
-      if (recorder != null) {
-        try { recorder.recordMove(++moveIndex, wasPlayerA, row, col, letter, game); } catch (IOException ignored) {}
-      }
-
       updateLabels();
       if (game.getStatus() != SosGameBase.Status.IN_PROGRESS) {
         disableRemainingCells();
@@ -202,33 +254,23 @@ public class SosFrame extends JFrame {
   }
 
   private void disableRemainingCells() {
-    int n = game.getSize();
-    for (int r = 0; r < n; r++) {
-      for (int c = 0; c < n; c++) {
-        if (cellButtons[r][c].isEnabled()) cellButtons[r][c].setEnabled(false);
-      }
-    }
+    boardView.setInputEnabled(false);
   }
 
   private void setBoardEnabled(boolean enabled) {
-    if (cellButtons == null) return;
-    int n = game.getSize();
-    for (int r = 0; r < n; r++) {
-      for (int c = 0; c < n; c++) {
-        if (cellButtons[r][c].getText().isEmpty()) {
-          cellButtons[r][c].setEnabled(enabled);
-        }
-      }
-    }
+    if (boardView != null) boardView.setInputEnabled(enabled);
   }
 
-  private void setCellText(int row, int col, SosGameBase.Cell letter, boolean isPlayerA) {
-    JButton b = cellButtons[row][col];
-    String ch = (letter == SosGameBase.Cell.S) ? "S" : "O";
-    String colorHex = isPlayerA ? "#1565c0" : "#d32f2f";
-    b.setText("<html><b><span style='color:" + colorHex + ";'>" + ch + "</span></b></html>");
-    b.setForeground(isPlayerA ? new Color(21,101,192) : new Color(211,47,47));
-    b.setEnabled(true);
+  /**
+   * Draws a move and the SOS lines it completed, as the game reports them, and records it. The
+   * view repaints just those cells.
+   */
+  private void onMoveMade(MoveEvent e) {
+    boardView.setCell(e.getRow(), e.getCol(), e.getLetter(), e.isByPlayerA());
+    for (int k = 0; k < e.getLineCount(); k++) boardView.addLine(e.getLineFirst(k), e.getLineLast(k), e.isByPlayerA());
+    if (recorder != null) {
+      try { recorder.recordMove(e); } catch (IOException ignored) {}
+    }
   }
 
   private void maybeStartAiTurn() {
@@ -244,43 +286,53 @@ public class SosFrame extends JFrame {
     }
 
     setBoardEnabled(false);
-    new SwingWorker<Move, Void>() {
-      @Override protected Move doInBackground() {
-        return aiStrategy.choose(game);
+    aiThinking = true;
+    SosGameBase searched = game;
+    computer.move(game).whenComplete((m, ex) -> SwingUtilities.invokeLater(() -> onComputerMove(searched, m, ex)));
+  }
+
+  private void onComputerMove(SosGameBase searched, Move m, Throwable error) {
+    // A cancelled search belongs to a game that was replaced, undone or left for a replay.
+    if (error instanceof CancellationException || game != searched) return;
+    aiThinking = false;
+    if (error != null) {
+      JOptionPane.showMessageDialog(this, error.getMessage(), "AI Error", JOptionPane.ERROR_MESSAGE);
+      setBoardEnabled(true);
+      return;
+    }
+    try {
+      if (m != null && game.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+        game.placeLetter(m.row(), m.col(), m.letter());
       }
-      @Override protected void done() {
-        try {
-          Move m = get();
-          if (m != null && game.getStatus() == SosGameBase.Status.IN_PROGRESS) {
-            game.placeLetter(m.row(), m.col(), m.letter());
-            setCellText(m.row(), m.col(), m.letter(), aTurn);
-            if (recorder != null) {
-              try { recorder.recordMove(++moveIndex, aTurn, m.row(), m.col(), m.letter(), game); } catch (IOException ignored) {}
-            }
-          }
-          updateLabels();
-
-          if (game.getStatus() != SosGameBase.Status.IN_PROGRESS) {
-            disableRemainingCells();
-            announceResult();
-            return;
-          }
-
-          PlayerType nextType = game.isPlayerATurn()
-              ? (PlayerType) playerATypeBox.getSelectedItem()
-              : (PlayerType) playerBTypeBox.getSelectedItem();
-
-          if (nextType == PlayerType.COMPUTER) {
-            maybeStartAiTurn();
-          } else {
-            setBoardEnabled(true);
-          }
-        } catch (Exception ex) {
-          JOptionPane.showMessageDialog(SosFrame.this, ex.getMessage(), "AI Error", JOptionPane.ERROR_MESSAGE);
-          setBoardEnabled(true);
-        }
+      updateLabels();
+
+      if (game.getStatus() != SosGameBase.Status.IN_PROGRESS) {
+        disableRemainingCells();
+        announceResult();
+        return;
       }
-    }.execute();
+
+      if (currentPlayerType() == PlayerType.COMPUTER) {
+        maybeStartAiTurn();
+      } else {
+        setBoardEnabled(true);
+        computer.ponder(game); // think on the expected reply while the human does
+      }
+    } catch (RuntimeException ex) {
+      JOptionPane.showMessageDialog(this, ex.getMessage(), "AI Error", JOptionPane.ERROR_MESSAGE);
+      setBoardEnabled(true);
+    }
+  }
+
+  /** A computer player for the engine and think time chosen in the top bar. */
+  private ComputerPlayer newComputerPlayer() {
+    long millis = THINK_MILLIS[thinkBox.getSelectedIndex()];
+    Strategy strategy = switch (engineBox.getSelectedIndex()) {
+      case 1 -> new AlphaBetaStrategy(millis);
+      case 2 -> new MctsStrategy(millis);
+      default -> new RandomStrategy();
+    };
+    return new ComputerPlayer(strategy, millis, ponderCheck.isSelected());
   }
 
   private void onReplay(ActionEvent e) {
@@ -297,38 +349,114 @@ public class SosFrame extends JFrame {
       return;
     }
 
+    ReplayController controller;
+    try {
+      controller = new ReplayController(loaded);
+    } catch (IllegalArgumentException ex) {
+      JOptionPane.showMessageDialog(this, "Replay failed: " + ex.getMessage(), "Replay Error", JOptionPane.ERROR_MESSAGE);
+      return;
+    }
+
+    stopReplay();
+    computer.cancel();
+    aiThinking = false;
     isReplaying = true;
     recordCheck.setSelected(false);
     closeRecorderQuietly();
 
-    game = SosGames.create(loaded.size, loaded.mode);
-    updateLabels();
+    replay = controller;
+    game = replay.game();
     rebuildBoardUI();
-    setBoardEnabled(false);
+    showReplayBar();
+    syncReplayView();
+    replayTimer.setInitialDelay(400);
+    setPlaying(true);
+  }
 
-    List<GameReplayer.MoveRec> moves = loaded.moves;
-    final int[] idx = {0};
-    Timer t = new Timer(450, ae -> {
-      if (idx[0] >= moves.size() || game.getStatus() != SosGameBase.Status.IN_PROGRESS) {
-        ((Timer) ae.getSource()).stop();
-        isReplaying = false;
-        disableRemainingCells();
-        announceResult();
-        return;
-      }
-      GameReplayer.MoveRec mr = moves.get(idx[0]++);
-      try {
-        game.placeLetter(mr.row, mr.col, mr.letter);
-        setCellText(mr.row, mr.col, mr.letter, mr.isPlayerA);
-        updateLabels();
-      } catch (RuntimeException ex) {
-        ((Timer) ae.getSource()).stop();
-        isReplaying = false;
-        JOptionPane.showMessageDialog(this, "Replay failed: " + ex.getMessage(), "Replay Error", JOptionPane.ERROR_MESSAGE);
+  private void showReplayBar() {
+    if (replayBar == null) {
+      replayBar = new JPanel(new BorderLayout(5, 5));
+      JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+      JButton first = new JButton("|<"), prev = new JButton("<"), next = new JButton(">"), last = new JButton(">|");
+      first.addActionListener(e -> seekReplay(0));
+      prev.addActionListener(e -> seekReplay(replay.getPly() - 1));
+      next.addActionListener(e -> seekReplay(replay.getPly() + 1));
+      last.addActionListener(e -> seekReplay(replay.getMoveCount()));
+      playButton.addActionListener(e -> setPlaying(!replayTimer.isRunning()));
+      speedBox.setSelectedIndex(1);
+      speedBox.addActionListener(e -> replayTimer.setDelay(SPEED_DELAYS[speedBox.getSelectedIndex()]));
+      for (JComponent c : new JComponent[] { first, prev, playButton, next, last, new JLabel("Speed:"), speedBox }) buttons.add(c);
+      replaySlider.addChangeListener(e -> {
+        if (!syncingSlider && replay != null) seekReplay(replaySlider.getValue());
+      });
+      replayBar.add(buttons, BorderLayout.WEST);
+      replayBar.add(replaySlider, BorderLayout.CENTER);
+      replayBar.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+    }
+    syncingSlider = true;
+    replaySlider.setMaximum(replay.getMoveCount());
+    syncingSlider = false;
+    add(replayBar, BorderLayout.SOUTH);
+    revalidate();
+  }
+
+  private void stopReplay() {
+    replayTimer.stop();
+    isReplaying = false;
+    replay = null;
+    if (replayBar != null) {
+      remove(replayBar);
+      revalidate();
+    }
+  }
+
+  private void setPlaying(boolean playing) {
+    if (playing && replay.getPly() == replay.getMoveCount()) seekReplay(0); // play again from the start
+    replayTimer.setDelay(SPEED_DELAYS[speedBox.getSelectedIndex()]);
+    if (playing) replayTimer.start(); else replayTimer.stop();
+    playButton.setText(playing ? "Pause" : "Play");
+  }
+
+  private void onReplayTick() {
+    if (replay == null) return;
+    seekReplay(replay.getPly() + 1);
+    if (replay.getPly() == replay.getMoveCount()) {
+      setPlaying(false);
+      announceResult();
+    }
+  }
+
+  private void seekReplay(int ply) {
+    replay.seek(ply);
+    syncReplayView();
+  }
+
+  /**
+   * Brings the view to the controller's ply from its per-cell move index, so any jump is one pass.
+   * Only cells whose letter differs are touched, so a single step repaints a single cell.
+   */
+  private void syncReplayView() {
+    game = replay.game();
+    boardView.setInputEnabled(false);
+    int n = game.getSize(), ply = replay.getPly();
+    for (int i = 0; i < n * n; i++) {
+      int p = replay.plyOfCell(i);
+      if (p >= ply) {
+        boardView.clearCell(i / n, i % n);
+      } else if (boardView.setCell(i / n, i % n, replay.move(p).letter(), replay.isMoveByPlayerA(p))) {
+        int lines = game.sosLinesAt(i / n, i % n, lineCells);
+        for (int k = 0; k < lines; k++) {
+          int first = lineCells[2 * k], last = lineCells[2 * k + 1];
+          // A line belongs to whoever placed its last letter.
+          int by = Math.max(replay.plyOfCell((first + last) / 2), Math.max(replay.plyOfCell(first), replay.plyOfCell(last)));
+          boardView.addLine(first, last, replay.isMoveByPlayerA(by));
+        }
       }
-    });
-    t.setInitialDelay(400);
-    t.start();
+    }
+    updateLabels();
+    syncingSlider = true;
+    replaySlider.setValue(ply);
+    syncingSlider = false;
   }
 
   private void announceResult() {
@@ -339,12 +467,26 @@ public class SosFrame extends JFrame {
       default -> "Game over.";
     };
     JOptionPane.showMessageDialog(this, msg, "Game Over", JOptionPane.INFORMATION_MESSAGE);
-    if (recorder != null) {
+    if (recorder instanceof AsyncGameRecorder async) {
+      // The writer thread does the flush and fsync; only report back if it failed.
+      try {
+        async.finishAsync(game).whenComplete((v, ex) -> {
+          if (ex != null) SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+              "Failed to save recording: " + ex.getMessage(), "I/O Error", JOptionPane.ERROR_MESSAGE));
+        });
+      } catch (IOException ignored) {}
+      recorder = null;
+    } else if (recorder != null) {
       try { recorder.finish(game); } catch (IOException ignored) {}
       recorder = null;
     }
   }
 
+  private AsyncRecordingService recordingService() {
+    if (recordingService == null) recordingService = new AsyncRecordingService();
+    return recordingService;
+  }
+
   private void closeRecorderQuietly() {
     if (recorder != null) {
       try { recorder.close(); } catch (IOException ignored) {}
@@ -1,11 +1,39 @@
 package com.sosproject;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public abstract class SosGameBase {
   public enum Cell { EMPTY, S, O }
   public enum Status { IN_PROGRESS, PLAYER_A_WON, PLAYER_B_WON, DRAW }
 
+  public static final int MIN_SIZE = 3;
+  /** Largest supported board; the packed board costs 2 bits per cell, 4 MB at this size. */
+  public static final int MAX_SIZE = 4096;
+
+  private static final int[][] DIRS = { {1,0}, {0,1}, {1,1}, {1,-1} };
+  /** Per-size masks of cells that can start an SOS in each of {@link #DIRS}; shared by all games. */
+  private static final Map<Integer, long[][]> START_MASKS = new ConcurrentHashMap<>();
+
   private final int size;
-  private final Cell[][] board;
+  private final LineTable lines; // null past LineTable.MAX_SIZE; countSOSAt then probes directly
+  // Board packed as two row-major occupancy bitsets (bit index = row * size + col).
+  private final long[] sBits;
+  private final long[] oBits;
+  private int filled = 0;
+  // Swap-remove set of empty cells, built on first use: emptyList[0 .. getEmptyCount()) are the
+  // empty cells and emptyPos[cell] is each one's slot. Null until a caller asks for empty cells.
+  private int[] emptyList;
+  private int[] emptyPos;
+  // Past DENSE_EMPTY_CELLS cells the set would cost 8 bytes a cell, copied with every copy(), so
+  // large boards instead keep an empty count per block of 64 occupancy words and scan for the cell.
+  private static final int DENSE_EMPTY_CELLS = 1 << 16;
+  private static final int BLOCK_SHIFT = 12; // cells per block: 64 words of 64
+  private int[] emptyPerBlock;
+  private ThreatIndex threats;
+  // Zobrist hashes of the board under each of the eight symmetries; hashes[0] is the board as is.
+  private final long[] hashes = new long[Symmetry.COUNT];
   private boolean playerATurn = true;
   private final GameMode mode;
 
@@ -13,12 +41,29 @@ public abstract class SosGameBase {
   private int scoreA = 0;
   private int scoreB = 0;
 
+  // Undo stack, one packed entry per move: cell | letter | mover | score deltas (see pack()).
+  private static final long LETTER_O = 1L << 32;
+  private static final long MOVER_A = 1L << 33;
+  private static final long[] NO_HISTORY = {};
+  private long[] history = NO_HISTORY;
+  private int moveCount = 0;   // entries in history
+  private int plyBase = 0;     // moves made before the history starts, for restored positions
+
+  // Move listeners, replaced on change so a move walks a stable array; not carried over by copy().
+  private static final MoveListener[] NO_LISTENERS = {};
+  private MoveListener[] listeners = NO_LISTENERS;
+  private MoveEvent event; // created with the first listener and reused for every move
+  private boolean publishing; // the event is mid-dispatch, so the game must not change under it
+
   protected SosGameBase(int size, GameMode mode) {
-    if (size < 3 || size > 10) throw new IllegalArgumentException("Board size must be 3..10");
+    if (size < MIN_SIZE || size > MAX_SIZE) throw new IllegalArgumentException("Board size must be " + MIN_SIZE + ".." + MAX_SIZE);
     if (mode == null) throw new IllegalArgumentException("Mode cannot be null");
     this.size = size;
     this.mode = mode;
-    this.board = new Cell[size][size];
+    this.lines = size <= LineTable.MAX_SIZE ? LineTable.forSize(size) : null;
+    int words = Bitboard.words(size * size);
+    this.sBits = new long[words];
+    this.oBits = new long[words];
     resetBoard();
   }
 
@@ -28,37 +73,81 @@ public abstract class SosGameBase {
   public Status getStatus() { return status; }
   public int getScoreA() { return scoreA; }
   public int getScoreB() { return scoreB; }
+  public int getMoveCount() { return plyBase + moveCount; }
+  public int getEmptyCount() { return size * size - filled; }
+
+  /** Zobrist hash of the board, covering size and mode too; updated by every move and undo. */
+  public long getHash() { return hashes[0]; }
+
+  /**
+   * The same for every rotation and reflection of the board, so caches keyed on it store each
+   * symmetry class once. Only valid for values that are the same from every orientation.
+   */
+  public long getCanonicalHash() {
+    long h = hashes[0];
+    for (int t = 1; t < Symmetry.COUNT; t++) h = Math.min(h, hashes[t]);
+    return h;
+  }
+
+  /** The symmetry whose hash is {@link #getCanonicalHash()}; {@link Symmetry#apply} maps cells into it. */
+  int canonicalTransform() {
+    int best = 0;
+    for (int t = 1; t < Symmetry.COUNT; t++) if (hashes[t] < hashes[best]) best = t;
+    return best;
+  }
+  public boolean canUndo() { return moveCount > 0; }
 
   public void resetBoard() {
-    for (int r = 0; r < size; r++) {
-      for (int c = 0; c < size; c++) board[r][c] = Cell.EMPTY;
-    }
+    checkNotPublishing();
+    Arrays.fill(sBits, 0L);
+    Arrays.fill(oBits, 0L);
+    filled = 0;
+    Arrays.fill(hashes, salt());
+    if (emptyList != null) initEmptySet();
+    if (emptyPerBlock != null) initEmptyBlocks();
+    if (threats != null) threats.rebuild();
     playerATurn = true;
     status = Status.IN_PROGRESS;
     scoreA = 0;
     scoreB = 0;
+    moveCount = 0;
+    plyBase = 0;
   }
 
   public Cell getCell(int row, int col) {
     checkBounds(row, col);
-    return board[row][col];
+    int i = row * size + col;
+    if (Bitboard.get(sBits, i)) return Cell.S;
+    if (Bitboard.get(oBits, i)) return Cell.O;
+    return Cell.EMPTY;
   }
 
   public boolean isCellEmpty(int row, int col) {
     checkBounds(row, col);
-    return board[row][col] == Cell.EMPTY;
+    int i = row * size + col;
+    return !Bitboard.get(sBits, i) && !Bitboard.get(oBits, i);
   }
 
   public void placeLetter(int row, int col, Cell letter) {
+    long t0 = EngineMetrics.start();
+    checkNotPublishing();
     if (status != Status.IN_PROGRESS) {
       throw new IllegalStateException("Game is over.");
     }
     if (letter == null || letter == Cell.EMPTY) throw new IllegalArgumentException("Letter must be S or O");
     checkBounds(row, col);
-    if (board[row][col] != Cell.EMPTY) throw new IllegalStateException("Cell is already occupied");
+    int i = row * size + col;
+    if (Bitboard.get(sBits, i) || Bitboard.get(oBits, i)) throw new IllegalStateException("Cell is already occupied");
 
     boolean wasPlayerA = playerATurn;
-    board[row][col] = letter;
+    int prevA = scoreA, prevB = scoreB;
+    if (threats != null) threats.beforeChange(i);
+    Bitboard.set(letter == Cell.S ? sBits : oBits, i);
+    toggleHashes(row, col, letter == Cell.O);
+    if (threats != null) threats.afterChange(i);
+    if (emptyList != null) removeEmpty(i);
+    if (emptyPerBlock != null) emptyPerBlock[i >>> BLOCK_SHIFT]--;
+    filled++;
 
     // Count SOS lines formed by this move
     int formed = countSOSAt(row, col);
@@ -70,6 +159,342 @@ public abstract class SosGameBase {
     if (status == Status.IN_PROGRESS && !keepTurn) {
       playerATurn = !playerATurn;
     }
+    push(pack(i, letter, wasPlayerA, scoreA - prevA, scoreB - prevB));
+    if (EngineMetrics.ENABLED) EngineMetrics.INSTANCE.placeLetter.recordSince(t0);
+    if (listeners.length != 0) {
+      describe(row, col, letter, wasPlayerA, scoreA - prevA, scoreB - prevB, status == Status.IN_PROGRESS && keepTurn);
+      publish(false);
+    }
+  }
+
+  /**
+   * Adds a listener told about every later move and undo on this game, not on its copies. A
+   * listener that throws does so after the change has been applied, from the call that made it.
+   * Listeners must not change the game while they are told: placing a letter, undoing or
+   * resetting from inside one throws {@link IllegalStateException}.
+   */
+  public void addMoveListener(MoveListener l) {
+    if (l == null) throw new IllegalArgumentException("Listener cannot be null");
+    if (event == null) event = new MoveEvent(this);
+    listeners = Arrays.copyOf(listeners, listeners.length + 1);
+    listeners[listeners.length - 1] = l;
+  }
+
+  public void removeMoveListener(MoveListener l) {
+    for (int k = 0; k < listeners.length; k++) {
+      if (listeners[k] == l) {
+        MoveListener[] rest = new MoveListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, rest, 0, k);
+        System.arraycopy(listeners, k + 1, rest, k, rest.length - k);
+        listeners = rest;
+        return;
+      }
+    }
+  }
+
+  /** Fills in the event for the last move on the board, while its letter is still there. */
+  private void describe(int row, int col, Cell letter, boolean byPlayerA, int deltaA, int deltaB, boolean turnKept) {
+    MoveEvent e = event;
+    e.moveNumber = getMoveCount();
+    e.row = row;
+    e.col = col;
+    e.letter = letter;
+    e.byPlayerA = byPlayerA;
+    e.lineCount = sosLinesAt(row, col, e.lineBuffer()); // every SOS through a new letter is new
+    e.scoreDeltaA = deltaA;
+    e.scoreDeltaB = deltaB;
+    e.turnKept = turnKept;
+  }
+
+  private void publish(boolean undone) {
+    publishing = true;
+    try {
+      for (MoveListener l : listeners) {
+        if (undone) l.moveUndone(event);
+        else l.moveMade(event);
+      }
+    } finally {
+      publishing = false;
+    }
+  }
+
+  private void checkNotPublishing() {
+    if (publishing) throw new IllegalStateException("A move listener cannot change the game it is told about");
+  }
+
+  /**
+   * The {@code k}-th empty cell as {@code row * size + col}, for {@code 0 <= k < getEmptyCount()}.
+   * Slots are reordered by moves, so iterate or sample by index rather than keeping them. Boards
+   * past 256x256 keep no cell list and find the cell with a scan of about {@code size * size / 4096}
+   * counts and 64 words.
+   */
+  public int getEmptyCell(int k) {
+    if (k < 0 || k >= getEmptyCount()) throw new IndexOutOfBoundsException("No empty cell " + k);
+    if (size * size > DENSE_EMPTY_CELLS) return scanEmptyCell(k);
+    if (emptyList == null) {
+      emptyList = new int[size * size];
+      emptyPos = new int[size * size];
+      initEmptySet();
+    }
+    return emptyList[k];
+  }
+
+  /**
+   * Completing and conceding counts for every empty cell, kept current by every later move and
+   * undo. Built on first call, after which each move pays a small constant update cost.
+   */
+  public ThreatIndex getThreats() {
+    if (threats == null) threats = new ThreatIndex(size, lines, sBits, oBits);
+    return threats;
+  }
+
+  private void initEmptySet() {
+    int k = 0;
+    for (int i = 0; i < size * size; i++) {
+      if (!Bitboard.get(sBits, i) && !Bitboard.get(oBits, i)) {
+        emptyPos[i] = k;
+        emptyList[k++] = i;
+      }
+    }
+  }
+
+  /** The k-th empty cell in board order: whole blocks are skipped by count, then words by popcount. */
+  private int scanEmptyCell(int k) {
+    if (emptyPerBlock == null) {
+      emptyPerBlock = new int[(size * size + (1 << BLOCK_SHIFT) - 1) >>> BLOCK_SHIFT];
+      initEmptyBlocks();
+    }
+    int b = 0;
+    while (k >= emptyPerBlock[b]) k -= emptyPerBlock[b++];
+    // Bits past the last cell read as free, but k runs out on real cells before reaching them.
+    for (int w = b << (BLOCK_SHIFT - 6); ; w++) {
+      long free = ~(sBits[w] | oBits[w]);
+      int count = Long.bitCount(free);
+      if (k < count) {
+        for (; k > 0; k--) free &= free - 1;
+        return (w << 6) + Long.numberOfTrailingZeros(free);
+      }
+      k -= count;
+    }
+  }
+
+  private void initEmptyBlocks() {
+    int cells = size * size, wordsPerBlock = 1 << (BLOCK_SHIFT - 6);
+    for (int b = 0; b < emptyPerBlock.length; b++) {
+      int first = b << BLOCK_SHIFT, occupied = 0;
+      for (int w = b * wordsPerBlock; w < Math.min(sBits.length, (b + 1) * wordsPerBlock); w++) {
+        occupied += Long.bitCount(sBits[w] | oBits[w]);
+      }
+      emptyPerBlock[b] = Math.min(1 << BLOCK_SHIFT, cells - first) - occupied;
+    }
+  }
+
+  // Both run while filled still counts the cell as empty, so getEmptyCount() - 1 is the last slot.
+  private void removeEmpty(int cell) {
+    int slot = emptyPos[cell], last = getEmptyCount() - 1;
+    int moved = emptyList[last];
+    emptyList[slot] = moved;
+    emptyPos[moved] = slot;
+  }
+
+  private void addEmpty(int cell) {
+    int slot = getEmptyCount() - 1;
+    emptyList[slot] = cell;
+    emptyPos[cell] = slot;
+  }
+
+  /** How many SOS lines placing {@code letter} at an empty cell would complete, without placing it. */
+  public int countSOSIfPlaced(int row, int col, Cell letter) {
+    if (letter == null || letter == Cell.EMPTY) throw new IllegalArgumentException("Letter must be S or O");
+    if (!isCellEmpty(row, col)) throw new IllegalStateException("Cell is already occupied");
+    long[] bits = letter == Cell.S ? sBits : oBits;
+    int i = row * size + col;
+    Bitboard.set(bits, i);
+    int formed = findSOSAt(row, col); // a what-if, not counted as a detection
+    Bitboard.clear(bits, i);
+    return formed;
+  }
+
+  /**
+   * Writes each SOS through (row, col) into {@code out} as its first and last cell, two ints per
+   * line, and returns the number of lines. At most eight lines run through one cell. The first
+   * cell is the one a line starts from in the scan order: above, or to the left on a row.
+   */
+  public int sosLinesAt(int row, int col, int[] out) {
+    checkBounds(row, col);
+    int i = row * size + col, k = 0;
+    if (Bitboard.get(oBits, i)) {
+      for (int[] d : DIRS) {
+        int dr = d[0], dc = d[1];
+        if (isS(row - dr, col - dc) && isS(row + dr, col + dc)) {
+          out[k++] = i - dr * size - dc;
+          out[k++] = i + dr * size + dc;
+        }
+      }
+    } else if (Bitboard.get(sBits, i)) {
+      for (int[] d : DIRS) {
+        int dr = d[0], dc = d[1];
+        if (isO(row + dr, col + dc) && isS(row + 2 * dr, col + 2 * dc)) {
+          out[k++] = i;
+          out[k++] = i + 2 * (dr * size + dc);
+        }
+        if (isO(row - dr, col - dc) && isS(row - 2 * dr, col - 2 * dc)) {
+          out[k++] = i - 2 * (dr * size + dc);
+          out[k++] = i;
+        }
+      }
+    }
+    return k / 2;
+  }
+
+  /** An independent game in the same position, including its undo history. */
+  public SosGameBase copy() {
+    SosGameBase g = SosGames.create(size, mode);
+    System.arraycopy(sBits, 0, g.sBits, 0, sBits.length);
+    System.arraycopy(oBits, 0, g.oBits, 0, oBits.length);
+    g.filled = filled;
+    System.arraycopy(hashes, 0, g.hashes, 0, hashes.length);
+    if (emptyList != null) {
+      g.emptyList = emptyList.clone();
+      g.emptyPos = emptyPos.clone();
+    }
+    if (emptyPerBlock != null) g.emptyPerBlock = emptyPerBlock.clone();
+    if (threats != null) g.threats = threats.copyFor(g.sBits, g.oBits);
+    g.playerATurn = playerATurn;
+    g.status = status;
+    g.scoreA = scoreA;
+    g.scoreB = scoreB;
+    g.history = moveCount == 0 ? NO_HISTORY : Arrays.copyOf(history, history.length);
+    g.moveCount = moveCount;
+    g.plyBase = plyBase;
+    return g;
+  }
+
+  /** A position without its undo history: board, scores, turn, status and move count. */
+  public record Snapshot(int size, GameMode mode, long[] sBits, long[] oBits,
+                         int scoreA, int scoreB, boolean playerATurn, Status status, int moveCount) {}
+
+  public Snapshot snapshot() {
+    return new Snapshot(size, mode, sBits.clone(), oBits.clone(), scoreA, scoreB, playerATurn, status, getMoveCount());
+  }
+
+  /**
+   * A game in the snapshot's position. It plays on normally, but its undo history starts at the
+   * snapshot, so {@link #canUndo()} is false until it makes a move.
+   */
+  public static SosGameBase restore(Snapshot s) {
+    SosGameBase g = SosGames.create(s.size(), s.mode());
+    int cells = s.size() * s.size();
+    if (s.sBits().length != g.sBits.length || s.oBits().length != g.oBits.length) {
+      throw new IllegalArgumentException("Snapshot does not match its board size");
+    }
+    for (int w = 0; w < g.sBits.length; w++) {
+      long live = w < cells >>> 6 ? -1L : (cells & 63) == 0 ? 0L : (1L << (cells & 63)) - 1;
+      if ((s.sBits()[w] & s.oBits()[w]) != 0 || ((s.sBits()[w] | s.oBits()[w]) & ~live) != 0) {
+        throw new IllegalArgumentException("Snapshot has overlapping or off-board cells");
+      }
+    }
+    if (s.status() == null || s.scoreA() < 0 || s.scoreB() < 0) throw new IllegalArgumentException("Invalid snapshot state");
+    System.arraycopy(s.sBits(), 0, g.sBits, 0, g.sBits.length);
+    System.arraycopy(s.oBits(), 0, g.oBits, 0, g.oBits.length);
+    g.filled = Bitboard.popCount(g.sBits) + Bitboard.popCount(g.oBits);
+    for (int i = 0; i < cells; i++) {
+      if (Bitboard.get(g.sBits, i)) g.toggleHashes(i / g.size, i % g.size, false);
+      else if (Bitboard.get(g.oBits, i)) g.toggleHashes(i / g.size, i % g.size, true);
+    }
+    if (s.moveCount() != g.filled) throw new IllegalArgumentException("Snapshot move count does not match its board");
+    g.playerATurn = s.playerATurn();
+    g.status = s.status();
+    g.scoreA = s.scoreA();
+    g.scoreB = s.scoreB();
+    g.plyBase = s.moveCount();
+    return g;
+  }
+
+  public void makeMove(Move m) {
+    placeLetter(m.row(), m.col(), m.letter());
+  }
+
+  /** Takes back the last move, restoring board, scores, turn and status. */
+  public void unmakeMove() {
+    checkNotPublishing();
+    if (moveCount == 0) throw new IllegalStateException("No move to undo");
+    long e = history[moveCount - 1];
+    int i = (int) e;
+    if (listeners.length != 0) {
+      boolean moverA = (e & MOVER_A) != 0;
+      describe(i / size, i % size, (e & LETTER_O) != 0 ? Cell.O : Cell.S, moverA,
+          (int) (e >>> 34) & 0xFF, (int) (e >>> 42) & 0xFF, status == Status.IN_PROGRESS && playerATurn == moverA);
+    }
+    moveCount--;
+    if (threats != null) threats.beforeChange(i);
+    Bitboard.clear((e & LETTER_O) != 0 ? oBits : sBits, i);
+    toggleHashes(i / size, i % size, (e & LETTER_O) != 0);
+    if (threats != null) threats.afterChange(i);
+    filled--;
+    if (emptyList != null) addEmpty(i);
+    if (emptyPerBlock != null) emptyPerBlock[i >>> BLOCK_SHIFT]++;
+    scoreA -= (int) (e >>> 34) & 0xFF;
+    scoreB -= (int) (e >>> 42) & 0xFF;
+    // A move can only be made while the game is running, so that is the state to go back to.
+    status = Status.IN_PROGRESS;
+    playerATurn = (e & MOVER_A) != 0;
+    if (listeners.length != 0) publish(true);
+  }
+
+  public void undo(int n) {
+    if (n < 0 || n > moveCount) throw new IllegalArgumentException("Cannot undo " + n + " of " + moveCount + " moves");
+    for (int k = 0; k < n; k++) unmakeMove();
+  }
+
+  /** The most recent move still on the board, or null if there is none. */
+  public Move lastMove() {
+    if (moveCount == 0) return null;
+    long e = history[moveCount - 1];
+    int i = (int) e;
+    return new Move(i / size, i % size, (e & LETTER_O) != 0 ? Cell.O : Cell.S);
+  }
+
+  /** Whether player A made move {@code index} (0-based), which must still be in the undo history. */
+  public boolean isMoveByPlayerA(int index) {
+    if (index < plyBase || index >= plyBase + moveCount) throw new IndexOutOfBoundsException("No move " + index);
+    return (history[index - plyBase] & MOVER_A) != 0;
+  }
+
+  private void toggleHashes(int row, int col, boolean letterO) {
+    for (int t = 0; t < Symmetry.COUNT; t++) hashes[t] ^= zobrist(Symmetry.apply(t, size, row, col) << 1 | (letterO ? 1 : 0));
+  }
+
+  /** Starting hash of an empty board; the same under every symmetry, but different per size and mode. */
+  private long salt() {
+    return zobrist(-1 - (size << 1 | mode.ordinal()));
+  }
+
+  /** Zobrist key of a move code {@code cell * 2 + (O ? 1 : 0)}, derived by hashing so no per-size table is needed. */
+  static long zobrist(int move) {
+    long z = (move + 1) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private static long pack(int cell, Cell letter, boolean moverA, int deltaA, int deltaB) {
+    if (deltaA < 0 || deltaA > 0xFF || deltaB < 0 || deltaB > 0xFF) {
+      throw new IllegalStateException("Score change out of range for undo");
+    }
+    return (cell & 0xFFFFFFFFL)
+        | (letter == Cell.O ? LETTER_O : 0L)
+        | (moverA ? MOVER_A : 0L)
+        | ((long) deltaA << 34)
+        | ((long) deltaB << 42);
+  }
+
+  private void push(long entry) {
+    if (moveCount == history.length) {
+      // At most one entry per cell, so grow by doubling up to the board area.
+      history = Arrays.copyOf(history, Math.min(size * size, Math.max(16, moveCount * 2)));
+    }
+    history[moveCount++] = entry;
   }
 
   protected void checkBounds(int row, int col) {
@@ -79,47 +504,79 @@ public abstract class SosGameBase {
   }
 
   protected boolean isBoardFull() {
-    for (int r = 0; r < size; r++) {
-      for (int c = 0; c < size; c++) {
-        if (board[r][c] == Cell.EMPTY) return false;
-      }
-    }
-    return true;
+    return filled == size * size;
   }
 
   /** SOS detection counting only lines that include the placed cell. */
   protected int countSOSAt(int row, int col) {
-    int[][] DIRS = { {1,0}, {0,1}, {1,1}, {1,-1} };
+    if (!EngineMetrics.ENABLED) return findSOSAt(row, col);
+    long t0 = System.nanoTime();
+    int count = findSOSAt(row, col);
+    EngineMetrics.INSTANCE.countedSos(t0, count);
+    return count;
+  }
+
+  private int findSOSAt(int row, int col) {
+    if (lines != null) return lines.countCompletedAt(sBits, oBits, row * size + col);
     int count = 0;
-    Cell placed = board[row][col];
+    boolean placedO = Bitboard.get(oBits, row * size + col);
 
     for (int[] d : DIRS) {
       int dr = d[0], dc = d[1];
-      if (placed == Cell.O) {
+      if (placedO) {
         // O as center: S (row-dr,col-dc), O (row,col), S (row+dr,col+dc)
-        if (in(row-dr, col-dc) && in(row+dr, col+dc)
-            && board[row-dr][col-dc] == Cell.S
-            && board[row+dr][col+dc] == Cell.S) {
-          count++;
-        }
-      } else if (placed == Cell.S) {
+        if (isS(row-dr, col-dc) && isS(row+dr, col+dc)) count++;
+      } else {
         // S at start: S (row,col), O (row+dr,col+dc), S (row+2dr,col+2dc)
-        if (in(row+dr, col+dc) && in(row+2*dr, col+2*dc)
-            && board[row+dr][col+dc] == Cell.O
-            && board[row+2*dr][col+2*dc] == Cell.S) {
-          count++;
-        }
+        if (isO(row+dr, col+dc) && isS(row+2*dr, col+2*dc)) count++;
         // S at end: S (row,col), O (row-dr,col-dc), S (row-2dr,col-2dc)
-        if (in(row-dr, col-dc) && in(row-2*dr, col-2*dc)
-            && board[row-dr][col-dc] == Cell.O
-            && board[row-2*dr][col-2*dc] == Cell.S) {
-          count++;
-        }
+        if (isO(row-dr, col-dc) && isS(row-2*dr, col-2*dc)) count++;
       }
     }
     return count;
   }
 
+  /**
+   * Counts every SOS on the board word-parallel: for each direction with cell step k,
+   * the starts of complete lines are {@code S & (O >> k) & (S >> 2k)} restricted to
+   * cells whose line stays on the board.
+   */
+  protected int countAllSOS() {
+    long[][] masks = START_MASKS.computeIfAbsent(size, SosGameBase::startMasks);
+    long[] o = new long[sBits.length];
+    long[] s2 = new long[sBits.length];
+    int count = 0;
+    for (int d = 0; d < DIRS.length; d++) {
+      int k = DIRS[d][0] * size + DIRS[d][1];
+      Bitboard.shiftDown(oBits, k, o);
+      Bitboard.shiftDown(sBits, 2 * k, s2);
+      long[] m = masks[d];
+      for (int w = 0; w < m.length; w++) count += Long.bitCount(sBits[w] & o[w] & s2[w] & m[w]);
+    }
+    return count;
+  }
+
+  private static long[][] startMasks(int size) {
+    long[][] masks = new long[DIRS.length][Bitboard.words(size * size)];
+    for (int d = 0; d < DIRS.length; d++) {
+      for (int r = 0; r < size; r++) {
+        for (int c = 0; c < size; c++) {
+          int r2 = r + 2 * DIRS[d][0], c2 = c + 2 * DIRS[d][1];
+          if (r2 < size && c2 >= 0 && c2 < size) Bitboard.set(masks[d], r * size + c);
+        }
+      }
+    }
+    return masks;
+  }
+
+  private boolean isS(int r, int c) {
+    return in(r, c) && Bitboard.get(sBits, r * size + c);
+  }
+
+  private boolean isO(int r, int c) {
+    return in(r, c) && Bitboard.get(oBits, r * size + c);
+  }
+
   private boolean in(int r, int c) {
     return r >= 0 && r < size && c >= 0 && c < size;
   }
@@ -1,5 +1,36 @@
 package com.sosproject;
 
-public interface Strategy {
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface Strategy extends AutoCloseable {
+  /** The move to play, searched within the strategy's own budget; null if the game is over. */
   Move choose(SosGameBase game);
+
+  /**
+   * Anytime form of {@link #choose(SosGameBase)}: searches until the limits are reached or the
+   * calling thread is interrupted, then returns the best move found so far. While the game is in
+   * progress the result is a legal move even if the limits leave no time to search, and an
+   * interrupt ends the search without an exception, leaving the interrupt status set. The limits
+   * replace the strategy's own budget.
+   *
+   * <p>{@code progress}, which may be null, is called on the searching thread whenever the search
+   * has something new to report, so it must be quick.
+   *
+   * <p>The default is for strategies that answer at once: it ignores the limits and reports the
+   * chosen move as a one-move line.
+   */
+  default Move choose(SosGameBase game, SearchLimits limits, Consumer<SearchProgress> progress) {
+    long start = System.nanoTime();
+    Move m = choose(game);
+    if (progress != null && m != null) progress.accept(new SearchProgress(1, 1, System.nanoTime() - start, 0, List.of(m)));
+    return m;
+  }
+
+  /**
+   * Releases the threads the strategy searches with; the default holds none. Whoever builds a
+   * strategy closes it, and wrappers close what they wrap.
+   */
+  @Override
+  default void close() {}
 }
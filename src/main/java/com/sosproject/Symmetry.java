@@ -0,0 +1,64 @@
+package com.sosproject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The eight symmetries of a square board (rotations and reflections) as cell permutations. Each
+ * one maps SOS lines onto SOS lines, so symmetric positions have the same value. Transform 0 is
+ * the identity.
+ */
+final class Symmetry {
+  static final int COUNT = 8;
+
+  private static final Map<Integer, int[][]> PERMS = new ConcurrentHashMap<>();
+  private static final Map<Integer, int[][]> INVERSES = new ConcurrentHashMap<>();
+
+  private Symmetry() {}
+
+  /** {@code perms(size)[t][cell]} is where transform {@code t} moves {@code cell}; shared, so read only. */
+  static int[][] perms(int size) {
+    return PERMS.computeIfAbsent(size, Symmetry::build);
+  }
+
+  /** {@code inverses(size)[t][cell]} is the cell that transform {@code t} moves onto {@code cell}. */
+  static int[][] inverses(int size) {
+    return INVERSES.computeIfAbsent(size, n -> {
+      int[][] p = perms(n), inv = new int[COUNT][n * n];
+      for (int t = 0; t < COUNT; t++) {
+        for (int cell = 0; cell < n * n; cell++) inv[t][p[t][cell]] = cell;
+      }
+      return inv;
+    });
+  }
+
+  /** The transform that undoes {@code t}: the two quarter turns swap, every other one undoes itself. */
+  static int inverse(int t) {
+    return t == 1 ? 3 : t == 3 ? 1 : t;
+  }
+
+  /** Where transform {@code t} moves cell (r, c) on a board of size {@code n}; needs no table. */
+  static int apply(int t, int n, int r, int c) {
+    int m = n - 1;
+    return switch (t) {
+      case 0 -> r * n + c;             // identity
+      case 1 -> c * n + (m - r);       // rotate 90
+      case 2 -> (m - r) * n + (m - c); // rotate 180
+      case 3 -> (m - c) * n + r;       // rotate 270
+      case 4 -> r * n + (m - c);       // mirror left-right
+      case 5 -> (m - r) * n + c;       // mirror top-bottom
+      case 6 -> c * n + r;             // transpose
+      default -> (m - c) * n + (m - r); // anti-transpose
+    };
+  }
+
+  private static int[][] build(int n) {
+    int[][] p = new int[COUNT][n * n];
+    for (int r = 0; r < n; r++) {
+      for (int c = 0; c < n; c++) {
+        for (int t = 0; t < COUNT; t++) p[t][r * n + c] = apply(t, n, r, c);
+      }
+    }
+    return p;
+  }
+}
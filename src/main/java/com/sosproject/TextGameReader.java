@@ -0,0 +1,201 @@
+package com.sosproject;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+/**
+ * Streams an SOSv1 text recording (see {@link TextGameRecorder}) one move at a time from a
+ * memory-mapped file. Move lines are parsed straight from the mapped bytes, so reading allocates
+ * nothing per move however large the file. The file is mapped in windows, which start at a line
+ * boundary and are moved forward when a line runs past the current one.
+ *
+ * <p>As in {@link BinaryGameReader}, moves are replayed on a game of the recorded size and mode as
+ * they are read, so a move onto a taken cell, after the game ended or by the wrong player fails
+ * with an {@link IOException}. The header is read and checked on first use, not when the file is
+ * opened.
+ */
+public final class TextGameReader implements RecordingReader {
+  private static final int WINDOW = 64 << 20;
+
+  private final FileChannel channel;
+  private final long length;
+  private final int window;
+  private MappedByteBuffer buf;
+  private long bufStart;
+  private long pos;
+  private long scan; // parse position within the current line
+
+  private boolean headerRead;
+  private int size;
+  private GameMode mode;
+  private PlayerType playerA, playerB;
+  private SosGameBase game;
+
+  private int row, col;
+  private SosGameBase.Cell letter;
+  private boolean moverA;
+  private boolean done, finished;
+
+  public TextGameReader(Path path) throws IOException {
+    this(path, WINDOW);
+  }
+
+  /** @param window bytes mapped at a time; every line must be shorter than this */
+  TextGameReader(Path path, int window) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.length = channel.size();
+    this.window = window;
+  }
+
+  @Override public int getSize() throws IOException { readHeader(); return size; }
+  @Override public GameMode getMode() throws IOException { readHeader(); return mode; }
+  @Override public PlayerType getPlayerA() throws IOException { readHeader(); return playerA; }
+  @Override public PlayerType getPlayerB() throws IOException { readHeader(); return playerB; }
+
+  @Override public boolean next() throws IOException {
+    readHeader();
+    long t0 = EngineMetrics.start();
+    while (!done) {
+      if (pos >= length) { // cut off before the result line
+        done = true;
+        return false;
+      }
+      long end = lineEnd();
+      long start = pos;
+      pos = end + 1;
+      int b = byteAt(start);
+      if (b == 'E') {
+        done = finished = true;
+        return false;
+      }
+      if (isBlank(start, end)) continue;
+      parseMove(start, end);
+      if (EngineMetrics.ENABLED) EngineMetrics.INSTANCE.replayMove.recordSince(t0);
+      return true;
+    }
+    return false;
+  }
+
+  @Override public int row() { return row; }
+  @Override public int col() { return col; }
+  @Override public SosGameBase.Cell letter() { return letter; }
+  @Override public boolean isPlayerA() { return moverA; }
+  @Override public boolean isFinished() { return finished; }
+  /** The game with every move read so far applied. */
+  public SosGameBase game() throws IOException { readHeader(); return game; }
+
+  private void readHeader() throws IOException {
+    if (headerRead) return;
+    headerRead = true;
+    if (length == 0) throw new IOException("Invalid or empty SOS recording");
+    long end = lineEnd();
+    byte[] bytes = new byte[(int) (end - pos)];
+    for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) byteAt(pos + i);
+    pos = end + 1;
+    String header = new String(bytes, StandardCharsets.UTF_8).trim();
+    if (!header.startsWith("SOSv1")) throw new IOException("Invalid or empty SOS recording");
+    try {
+      size = Integer.parseInt(GameReplayer.parseToken(header, "size"));
+      mode = GameMode.valueOf(GameReplayer.parseToken(header, "mode"));
+      playerA = PlayerType.valueOf(GameReplayer.parseToken(header, "playerA"));
+      playerB = PlayerType.valueOf(GameReplayer.parseToken(header, "playerB"));
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid SOSv1 header: " + e.getMessage(), e);
+    }
+    if (size < SosGameBase.MIN_SIZE || size > SosGameBase.MAX_SIZE) throw new IOException("Invalid board size " + size);
+    game = SosGames.create(size, mode);
+  }
+
+  /** {@code index,A|B,row,col,S|O,...}; the index and the trailing scores are not needed. */
+  private void parseMove(long start, long end) throws IOException {
+    long p = skipField(start, end);
+    int who = byteAt(p);
+    if (who != 'A' && who != 'B') throw malformed(start);
+    moverA = who == 'A';
+    scan = skipField(p, end);
+    row = parseInt(end, start);
+    col = parseInt(end, start);
+    int l = scan < end ? byteAt(scan) : -1;
+    if (l == 'S') letter = SosGameBase.Cell.S;
+    else if (l == 'O') letter = SosGameBase.Cell.O;
+    else throw malformed(start);
+    if (row < 0 || row >= size || col < 0 || col >= size) throw new IOException("Move outside the board at byte " + start);
+    if (moverA != game.isPlayerATurn() && game.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+      throw new IOException("Move " + game.getMoveCount() + " in recording is out of turn");
+    }
+    try {
+      game.placeLetter(row, col, letter);
+    } catch (RuntimeException e) {
+      throw new IOException("Illegal move " + game.getMoveCount() + " in recording: " + e.getMessage(), e);
+    }
+  }
+
+  /** Position just past the next comma. */
+  private long skipField(long p, long end) throws IOException {
+    while (p < end && byteAt(p) != ',') p++;
+    if (p >= end) throw malformed(p);
+    return p + 1;
+  }
+
+  /** Reads a non-negative decimal field and its comma, advancing {@link #scan}. */
+  private int parseInt(long end, long lineStart) throws IOException {
+    long p = scan;
+    int v = 0, digits = 0;
+    for (int b; p < end && (b = byteAt(p)) >= '0' && b <= '9'; p++) {
+      v = v * 10 + (b - '0');
+      if (++digits > 9) throw malformed(lineStart);
+    }
+    if (digits == 0 || p >= end || byteAt(p) != ',') throw malformed(lineStart);
+    scan = p + 1;
+    return v;
+  }
+
+  private static IOException malformed(long at) {
+    return new IOException("Malformed SOSv1 move at byte " + at);
+  }
+
+  private boolean isBlank(long start, long end) throws IOException {
+    for (long p = start; p < end; p++) {
+      if (byteAt(p) > ' ') return false;
+    }
+    return true;
+  }
+
+  /** Offset of the newline ending the line at {@link #pos}, or the file length. */
+  private long lineEnd() throws IOException {
+    map(pos);
+    long limit = bufStart + buf.limit();
+    for (long p = pos; p < limit; p++) {
+      if (buf.get((int) (p - bufStart)) == '\n') return p;
+    }
+    if (limit >= length) return length;
+    if (pos == bufStart) throw new IOException("SOSv1 line longer than " + window + " bytes at byte " + pos);
+    map(pos, true);
+    return lineEnd();
+  }
+
+  /** A byte inside the current line, which {@link #lineEnd} has made sure is mapped. */
+  private int byteAt(long p) throws EOFException {
+    if (p >= length) throw new EOFException("Truncated SOSv1 recording");
+    return buf.get((int) (p - bufStart)) & 0xFF;
+  }
+
+  private void map(long at) throws IOException {
+    map(at, false);
+  }
+
+  private void map(long at, boolean force) throws IOException {
+    if (!force && buf != null && at >= bufStart && at < bufStart + buf.limit()) return;
+    bufStart = at;
+    buf = channel.map(FileChannel.MapMode.READ_ONLY, at, Math.min(window, length - at));
+  }
+
+  @Override public void close() throws IOException {
+    buf = null;
+    channel.close();
+  }
+}
@@ -3,34 +3,61 @@ package com.sosproject;
 import java.io.*;
 import java.nio.file.*;
 
-public class TextGameRecorder implements Closeable {
+public class TextGameRecorder implements GameRecorder {
   private final Path path;
   private BufferedWriter out;
 
   public TextGameRecorder(Path path) { this.path = path; }
 
+  @Override
   public void start(SosGameBase g, PlayerType a, PlayerType b) throws IOException {
     out = Files.newBufferedWriter(path);
-    out.write("SOSv1,size=" + g.getSize() + ",mode=" + g.getMode() + ",playerA=" + a + ",playerB=" + b);
+    out.write(headerLine(g.getSize(), g.getMode(), a, b));
     out.newLine();
   }
 
+  @Override
   public void recordMove(int index, boolean isPlayerA, int row, int col, SosGameBase.Cell letter, SosGameBase g) throws IOException {
+    writeMove(moveLine(index, isPlayerA, row, col, letter, g.getScoreA(), g.getScoreB(), g.getStatus()));
+  }
+
+  @Override
+  public void recordMove(MoveEvent e) throws IOException {
+    writeMove(moveLine(e.getMoveNumber(), e.isByPlayerA(), e.getRow(), e.getCol(), e.getLetter(), e.getScoreA(), e.getScoreB(), e.getStatus()));
+  }
+
+  private void writeMove(String line) throws IOException {
     if (out == null) return;
-    out.write(index + "," + (isPlayerA ? "A" : "B") + "," + row + "," + col + "," + letter + "," + g.getScoreA() + "," + g.getScoreB() + "," + g.getStatus());
+    long t0 = EngineMetrics.start();
+    out.write(line);
     out.newLine();
     out.flush();
+    if (EngineMetrics.ENABLED) EngineMetrics.INSTANCE.recordMove.recordSince(t0);
   }
 
+  @Override
   public void finish(SosGameBase g) throws IOException {
     if (out == null) return;
-    out.write("END,status=" + g.getStatus() + ",scoreA=" + g.getScoreA() + ",scoreB=" + g.getScoreB());
+    out.write(endLine(g.getStatus(), g.getScoreA(), g.getScoreB()));
     out.newLine();
     out.flush();
     out.close();
     out = null;
   }
 
+  static String headerLine(int size, GameMode mode, PlayerType a, PlayerType b) {
+    return "SOSv1,size=" + size + ",mode=" + mode + ",playerA=" + a + ",playerB=" + b;
+  }
+
+  static String moveLine(int index, boolean isPlayerA, int row, int col, SosGameBase.Cell letter,
+                         int scoreA, int scoreB, SosGameBase.Status status) {
+    return index + "," + (isPlayerA ? "A" : "B") + "," + row + "," + col + "," + letter + "," + scoreA + "," + scoreB + "," + status;
+  }
+
+  static String endLine(SosGameBase.Status status, int scoreA, int scoreB) {
+    return "END,status=" + status + ",scoreA=" + scoreA + ",scoreB=" + scoreB;
+  }
+
   @Override public void close() throws IOException {
     if (out != null) {
       out.flush();
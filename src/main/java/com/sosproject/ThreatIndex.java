@@ -0,0 +1,172 @@
+package com.sosproject;
+
+import java.util.Arrays;
+
+/**
+ * Live tactical view of a game: for every empty cell, how many SOS lines an S or an O there would
+ * complete, and how many lines it would leave one letter short for the opponent to complete.
+ *
+ * <p>Each SOS triple contributes to the counts of its empty cells according to its contents, so a
+ * move only has to retract and re-add the at most twelve triples through the changed cell. The
+ * owning game keeps the index current; obtain it with {@link SosGameBase#getThreats()}.
+ */
+public final class ThreatIndex {
+  private static final int[][] DIRS = { {1,0}, {0,1}, {1,1}, {1,-1} };
+
+  private final int size;
+  private final LineTable lines; // null for boards too large for a table
+  private final long[] sBits, oBits;
+  private final byte[] sWins, oWins, sDangers, oDangers;
+  private final long[] completing;
+  private int completingCount;
+
+  ThreatIndex(int size, LineTable lines, long[] sBits, long[] oBits) {
+    this.size = size;
+    this.lines = lines;
+    this.sBits = sBits;
+    this.oBits = oBits;
+    int cells = size * size;
+    sWins = new byte[cells];
+    oWins = new byte[cells];
+    sDangers = new byte[cells];
+    oDangers = new byte[cells];
+    completing = new long[Bitboard.words(cells)];
+    rebuild();
+  }
+
+  private ThreatIndex(ThreatIndex from, long[] sBits, long[] oBits) {
+    this.size = from.size;
+    this.lines = from.lines;
+    this.sBits = sBits;
+    this.oBits = oBits;
+    sWins = from.sWins.clone();
+    oWins = from.oWins.clone();
+    sDangers = from.sDangers.clone();
+    oDangers = from.oDangers.clone();
+    completing = from.completing.clone();
+    completingCount = from.completingCount;
+  }
+
+  /** A copy reading the given board bitsets, which must hold the same position. */
+  ThreatIndex copyFor(long[] sBits, long[] oBits) {
+    return new ThreatIndex(this, sBits, oBits);
+  }
+
+  /** SOS lines that placing {@code letter} on the empty {@code cell} would complete. */
+  public int completes(int cell, SosGameBase.Cell letter) {
+    return letter == SosGameBase.Cell.O ? oWins[cell] : sWins[cell];
+  }
+
+  /** Lines that placing {@code letter} on the empty {@code cell} would leave open for the opponent. */
+  public int concedes(int cell, SosGameBase.Cell letter) {
+    return letter == SosGameBase.Cell.O ? oDangers[cell] : sDangers[cell];
+  }
+
+  /** Number of empty cells where some letter completes an SOS. */
+  public int getCompletingCount() { return completingCount; }
+
+  /**
+   * Bitset of empty cells where some letter completes an SOS, bit {@code row * size + col}.
+   * This is the live array: read it, do not modify or keep it across moves.
+   */
+  public long[] completingCells() { return completing; }
+
+  /** Called before the cell changes: withdraw the triples through it. */
+  void beforeChange(int cell) {
+    visit(cell, -1);
+  }
+
+  /** Called after the cell changes: re-add the triples through it and refresh their cells. */
+  void afterChange(int cell) {
+    visit(cell, +1);
+  }
+
+  void rebuild() {
+    Arrays.fill(sWins, (byte) 0);
+    Arrays.fill(oWins, (byte) 0);
+    Arrays.fill(sDangers, (byte) 0);
+    Arrays.fill(oDangers, (byte) 0);
+    Arrays.fill(completing, 0L);
+    completingCount = 0;
+    if (lines != null) {
+      int[] packed = lines.packedLines();
+      for (int i = 0; i < packed.length; i += 3) contribute(packed[i], packed[i + 1], packed[i + 2], +1);
+    } else {
+      for (int r = 0; r < size; r++) {
+        for (int c = 0; c < size; c++) {
+          for (int[] d : DIRS) {
+            int r2 = r + 2 * d[0], c2 = c + 2 * d[1];
+            if (r2 < size && c2 >= 0 && c2 < size) contribute3(r * size + c, d[0] * size + d[1], +1);
+          }
+        }
+      }
+    }
+    for (int i = 0; i < size * size; i++) refresh(i);
+  }
+
+  private void visit(int cell, int sign) {
+    if (lines != null) {
+      int[] packed = lines.packedLines();
+      for (int k = 0, n = lines.cellLineCount(cell); k < n; k++) {
+        int base = lines.lineBase(cell, k);
+        int a = packed[base], b = packed[base + 1], c = packed[base + 2];
+        contribute(a, b, c, sign);
+        if (sign > 0) {
+          refresh(a);
+          refresh(b);
+          refresh(c);
+        }
+      }
+      if (sign > 0) refresh(cell);
+      return;
+    }
+    int r = cell / size, c = cell % size;
+    for (int[] d : DIRS) {
+      int dr = d[0], dc = d[1], step = dr * size + dc;
+      // The cell can be the start (k = 0), centre (k = 1) or end (k = 2) of a triple.
+      for (int k = 0; k < 3; k++) {
+        int r0 = r - k * dr, c0 = c - k * dc, r2 = r0 + 2 * dr, c2 = c0 + 2 * dc;
+        if (r0 < 0 || r2 >= size || c0 < 0 || c0 >= size || c2 < 0 || c2 >= size) continue;
+        int start = r0 * size + c0;
+        contribute3(start, step, sign);
+        if (sign > 0) {
+          refresh(start);
+          refresh(start + step);
+          refresh(start + 2 * step);
+        }
+      }
+    }
+    if (sign > 0) refresh(cell);
+  }
+
+  private void contribute3(int start, int step, int sign) {
+    contribute(start, start + step, start + 2 * step, sign);
+  }
+
+  /** Adds or removes one triple's contribution; needs S at a and c, O at b. */
+  private void contribute(int a, int b, int c, int sign) {
+    if (Bitboard.get(oBits, a) || Bitboard.get(sBits, b) || Bitboard.get(oBits, c)) return; // wrong letter
+    boolean fa = Bitboard.get(sBits, a), fb = Bitboard.get(oBits, b), fc = Bitboard.get(sBits, c);
+    int missing = (fa ? 0 : 1) + (fb ? 0 : 1) + (fc ? 0 : 1);
+    byte s = (byte) sign;
+    if (missing == 1) {
+      if (!fa) sWins[a] += s;
+      else if (!fb) oWins[b] += s;
+      else sWins[c] += s;
+    } else if (missing == 2) {
+      // Either empty cell, filled correctly, would leave the other one to complete the line.
+      if (!fa) sDangers[a] += s;
+      if (!fb) oDangers[b] += s;
+      if (!fc) sDangers[c] += s;
+    }
+  }
+
+  private void refresh(int cell) {
+    boolean empty = !Bitboard.get(sBits, cell) && !Bitboard.get(oBits, cell);
+    boolean on = empty && (sWins[cell] > 0 || oWins[cell] > 0);
+    if (on != Bitboard.get(completing, cell)) {
+      if (on) { Bitboard.set(completing, cell); completingCount++; }
+      else { Bitboard.clear(completing, cell); completingCount--; }
+    }
+  }
+}
@@ -0,0 +1,215 @@
+package com.sosproject;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Plays many headless games between two strategies across all cores.
+ *
+ * <p>Worker {@code w} of {@code T} plays games {@code w, w+T, w+2T, ...} with strategies seeded
+ * from the base seed and its index, so a run is reproducible for a given thread count. Colours
+ * alternate by game so neither strategy always moves first. Results are tallied from strategy
+ * X's point of view and optionally streamed to CSV in per-worker batches. With a node limit every
+ * move searches exactly that many nodes instead of for a time, so results also stop depending on
+ * how loaded the machine is.
+ *
+ * <pre>java -cp target/classes com.sosproject.TournamentRunner --size 5 --mode GENERAL \
+ *     --games 100000 --x random --y alphabeta:20 --out results.csv</pre>
+ */
+public class TournamentRunner {
+  private static final int CSV_BATCH = 1024;
+
+  private final int size;
+  private final GameMode mode;
+  private final LongFunction<Strategy> strategyX;
+  private final LongFunction<Strategy> strategyY;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private long seed = 1234L;
+  private Path csv;
+  private SearchLimits nodeLimit; // null: each strategy's own time budget
+
+  public TournamentRunner(int size, GameMode mode, LongFunction<Strategy> strategyX, LongFunction<Strategy> strategyY) {
+    if (mode == null || strategyX == null || strategyY == null) throw new IllegalArgumentException("Mode and strategies are required");
+    SosGames.create(size, mode); // validates the size
+    this.size = size;
+    this.mode = mode;
+    this.strategyX = strategyX;
+    this.strategyY = strategyY;
+  }
+
+  public TournamentRunner threads(int threads) {
+    if (threads < 1) throw new IllegalArgumentException("Need at least one thread");
+    this.threads = threads;
+    return this;
+  }
+
+  public TournamentRunner seed(long seed) { this.seed = seed; return this; }
+  public TournamentRunner csv(Path csv) { this.csv = csv; return this; }
+
+  /** Limits every search move to {@code maxNodes} nodes in place of the strategies' time budgets. */
+  public TournamentRunner nodes(long maxNodes) {
+    this.nodeLimit = SearchLimits.ofNodes(maxNodes);
+    return this;
+  }
+
+  /** Outcome counts from strategy X's side. */
+  public record Result(long games, long xWins, long draws, long yWins, long totalMoves, long nanos) {
+    public double gamesPerSecond() { return nanos == 0 ? 0.0 : games * 1e9 / nanos; }
+    public double xWinRate() { return rate(xWins); }
+    public double drawRate() { return rate(draws); }
+    public double yWinRate() { return rate(yWins); }
+    public double meanGameLength() { return games == 0 ? 0.0 : (double) totalMoves / games; }
+    /** 95% Wilson score interval for {@code count / games} as {low, high}. */
+    public double[] wilson95(long count) {
+      if (games == 0) return new double[] { 0.0, 1.0 };
+      double z = 1.96, n = games, p = count / n;
+      double centre = (p + z * z / (2 * n)) / (1 + z * z / n);
+      double half = z * Math.sqrt(p * (1 - p) / n + z * z / (4 * n * n)) / (1 + z * z / n);
+      return new double[] { Math.max(0.0, centre - half), Math.min(1.0, centre + half) };
+    }
+    private double rate(long count) { return games == 0 ? 0.0 : (double) count / games; }
+
+    @Override public String toString() {
+      double[] x = wilson95(xWins), d = wilson95(draws), y = wilson95(yWins);
+      return String.format("games=%d  %.0f games/s  mean length %.2f%n"
+          + "X wins %.4f [%.4f, %.4f]  draws %.4f [%.4f, %.4f]  Y wins %.4f [%.4f, %.4f]",
+          games, gamesPerSecond(), meanGameLength(),
+          xWinRate(), x[0], x[1], drawRate(), d[0], d[1], yWinRate(), y[0], y[1]);
+    }
+  }
+
+  public Result run(long games) throws IOException, InterruptedException {
+    if (games < 0) throw new IllegalArgumentException("Games cannot be negative");
+    LongAdder xWins = new LongAdder(), draws = new LongAdder(), yWins = new LongAdder(), moves = new LongAdder();
+    Writer out = csv == null ? null : Files.newBufferedWriter(csv);
+    long start = System.nanoTime();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      if (out != null) out.write("game,x_is_a,status,score_a,score_b,moves,x_result\n");
+      List<Future<?>> futures = new ArrayList<>(threads);
+      for (int w = 0; w < threads; w++) {
+        int worker = w;
+        futures.add(pool.submit(() -> {
+          playShare(worker, games, out, xWins, draws, yWins, moves);
+          return null;
+        }));
+      }
+      for (Future<?> f : futures) {
+        try {
+          f.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException io) throw io;
+          throw new IllegalStateException("Tournament worker failed", e.getCause());
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+      if (out != null) out.close();
+    }
+    return new Result(games, xWins.sum(), draws.sum(), yWins.sum(), moves.sum(), System.nanoTime() - start);
+  }
+
+  private void playShare(int worker, long games, Writer out,
+                         LongAdder xWins, LongAdder draws, LongAdder yWins, LongAdder moves) throws IOException {
+    long workerSeed = seed * 0x9E3779B97F4A7C15L + worker;
+    try (Strategy x = strategyX.apply(workerSeed * 2); Strategy y = strategyY.apply(workerSeed * 2 + 1)) {
+      playShare(worker, games, out, x, y, xWins, draws, yWins, moves);
+    }
+  }
+
+  private void playShare(int worker, long games, Writer out, Strategy x, Strategy y,
+                         LongAdder xWins, LongAdder draws, LongAdder yWins, LongAdder moves) throws IOException {
+    StringBuilder batch = new StringBuilder();
+    int pending = 0;
+    SosGameBase g = SosGames.create(size, mode);
+    for (long i = worker; i < games; i += threads) {
+      boolean xIsA = (i & 1) == 0;
+      g.resetBoard();
+      while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+        Strategy mover = g.isPlayerATurn() == xIsA ? x : y;
+        Move m = nodeLimit == null ? mover.choose(g) : mover.choose(g, nodeLimit, null);
+        if (m == null) throw new IllegalStateException("Strategy returned no move in a running game");
+        g.makeMove(m);
+      }
+      SosGameBase.Status s = g.getStatus();
+      int xResult = s == SosGameBase.Status.DRAW ? 0 : (s == SosGameBase.Status.PLAYER_A_WON) == xIsA ? 1 : -1;
+      (xResult > 0 ? xWins : xResult < 0 ? yWins : draws).increment();
+      moves.add(g.getMoveCount());
+
+      if (out != null) {
+        batch.append(i).append(',').append(xIsA).append(',').append(s).append(',')
+             .append(g.getScoreA()).append(',').append(g.getScoreB()).append(',')
+             .append(g.getMoveCount()).append(',').append(xResult).append('\n');
+        if (++pending == CSV_BATCH) {
+          writeBatch(out, batch);
+          pending = 0;
+        }
+      }
+    }
+    if (out != null && pending > 0) writeBatch(out, batch);
+  }
+
+  private static void writeBatch(Writer out, StringBuilder batch) throws IOException {
+    synchronized (out) {
+      out.append(batch);
+    }
+    batch.setLength(0);
+  }
+
+  /**
+   * Strategy factory from a command-line spec: {@code random}, {@code alphabeta[:ms]} or
+   * {@code mcts[:ms]} (single-threaded, since the runner already uses every core).
+   */
+  public static LongFunction<Strategy> parseStrategy(String spec) {
+    long ms = moveMillis(spec);
+    return switch (spec.split(":")[0]) {
+      case "random" -> RandomStrategy::new;
+      case "alphabeta" -> s -> new AlphaBetaStrategy(ms);
+      case "mcts" -> s -> new MctsStrategy(ms, 1, s);
+      default -> throw new IllegalArgumentException("Unknown strategy: " + spec);
+    };
+  }
+
+  /** The per-move time in a {@code name[:ms]} spec; 10 ms when none is given. */
+  static long moveMillis(String spec) {
+    String[] p = spec.split(":");
+    long ms = p.length > 1 ? Long.parseLong(p[1]) : 10L;
+    if (ms <= 0) throw new IllegalArgumentException("Move time must be positive: " + spec);
+    return ms;
+  }
+
+  public static void main(String[] args) throws Exception {
+    int size = 5;
+    GameMode mode = GameMode.SIMPLE;
+    long games = 10_000, seed = 1234L;
+    String x = "random", y = "random";
+    Integer threads = null;
+    Long nodes = null;
+    Path out = null;
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      String v = args[i + 1];
+      switch (args[i]) {
+        case "--size" -> size = Integer.parseInt(v);
+        case "--mode" -> mode = GameMode.valueOf(v.toUpperCase());
+        case "--games" -> games = Long.parseLong(v);
+        case "--seed" -> seed = Long.parseLong(v);
+        case "--threads" -> threads = Integer.parseInt(v);
+        case "--nodes" -> nodes = Long.parseLong(v);
+        case "--x" -> x = v;
+        case "--y" -> y = v;
+        case "--out" -> out = Path.of(v);
+        default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+    }
+    TournamentRunner runner = new TournamentRunner(size, mode, parseStrategy(x), parseStrategy(y)).seed(seed).csv(out);
+    if (threads != null) runner.threads(threads);
+    if (nodes != null) runner.nodes(nodes);
+    System.out.println("X=" + x + " Y=" + y + " size=" + size + " mode=" + mode);
+    System.out.println(runner.run(games));
+  }
+}
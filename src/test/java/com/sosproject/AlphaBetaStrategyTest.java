@@ -0,0 +1,110 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class AlphaBetaStrategyTest {
+
+  @Test
+  void simple_takes_the_winning_move() {
+    SosGameBase g = new SimpleSosGame(4);
+    g.placeLetter(0, 0, SosGameBase.Cell.S); // A
+    g.placeLetter(3, 3, SosGameBase.Cell.O); // B
+    g.placeLetter(0, 1, SosGameBase.Cell.O); // A
+    g.placeLetter(3, 0, SosGameBase.Cell.O); // B
+    Move m = new AlphaBetaStrategy(200).choose(g);
+    assertEquals(new Move(0, 2, SosGameBase.Cell.S), m);
+  }
+
+  @Test
+  void simple_does_not_hand_the_opponent_an_sos() {
+    SosGameBase g = new SimpleSosGame(5);
+    g.placeLetter(2, 2, SosGameBase.Cell.S); // A
+    Move m = new AlphaBetaStrategy(200).choose(g);
+    g.makeMove(m);
+    for (int r = 0; r < 5; r++) {
+      for (int c = 0; c < 5; c++) {
+        if (!g.isCellEmpty(r, c)) continue;
+        assertEquals(0, g.countSOSIfPlaced(r, c, SosGameBase.Cell.S), "S at " + r + "," + c);
+        assertEquals(0, g.countSOSIfPlaced(r, c, SosGameBase.Cell.O), "O at " + r + "," + c);
+      }
+    }
+  }
+
+  @Test
+  void general_prefers_the_double_sos() {
+    SosGameBase g = new GeneralSosGame(3);
+    g.placeLetter(0, 1, SosGameBase.Cell.S); // A
+    g.placeLetter(1, 0, SosGameBase.Cell.S); // B
+    g.placeLetter(2, 1, SosGameBase.Cell.S); // A
+    g.placeLetter(1, 2, SosGameBase.Cell.S); // B
+    AlphaBetaStrategy ai = new AlphaBetaStrategy(500);
+    assertEquals(new Move(1, 1, SosGameBase.Cell.O), ai.choose(g));
+    assertTrue(ai.getLastValue() >= 2, "Centre O scores two and keeps the turn");
+  }
+
+  @Test
+  void respects_the_move_budget_and_reports_nodes() {
+    SosGameBase g = new GeneralSosGame(10);
+    AlphaBetaStrategy ai = new AlphaBetaStrategy(50);
+    long t0 = System.nanoTime();
+    Move m = ai.choose(g);
+    long ms = (System.nanoTime() - t0) / 1_000_000;
+    assertNotNull(m);
+    assertTrue(g.isCellEmpty(m.row(), m.col()));
+    assertTrue(ms < 1000, "Search took " + ms + " ms");
+    assertTrue(ai.getLastNodes() > 0);
+    assertTrue(ai.getLastNodesPerSecond() > 0);
+    assertEquals(0, g.getMoveCount(), "Search must not touch the caller's game");
+  }
+
+  @Test
+  void node_limit_makes_the_search_repeatable_and_reports_each_depth() {
+    SosGameBase g = new GeneralSosGame(6);
+    g.placeLetter(2, 2, SosGameBase.Cell.S);
+    List<SearchProgress> reports = new ArrayList<>();
+    AlphaBetaStrategy first = new AlphaBetaStrategy(60_000), second = new AlphaBetaStrategy(60_000);
+    Move m = first.choose(g, SearchLimits.ofNodes(20_000), reports::add);
+    assertEquals(m, second.choose(g, SearchLimits.ofNodes(20_000), null));
+    assertTrue(first.getLastNodes() <= 20_000);
+
+    assertFalse(reports.isEmpty());
+    for (int i = 0; i < reports.size(); i++) {
+      SearchProgress p = reports.get(i);
+      assertEquals(i + 1, p.depth());
+      assertFalse(p.pv().isEmpty());
+      assertTrue(p.pv().size() <= p.depth());
+    }
+    SosGameBase line = g.copy();
+    for (Move pv : reports.get(reports.size() - 1).pv()) line.makeMove(pv); // the line must be playable
+  }
+
+  @Test
+  void returns_a_legal_move_past_its_deadline_or_when_interrupted() {
+    SosGameBase g = new GeneralSosGame(8);
+    AlphaBetaStrategy ai = new AlphaBetaStrategy(60_000);
+    Move late = ai.choose(g, new SearchLimits(System.nanoTime() - 1, Long.MAX_VALUE), null);
+    assertTrue(g.isCellEmpty(late.row(), late.col()));
+
+    Thread.currentThread().interrupt();
+    try {
+      Move m = ai.choose(g, SearchLimits.NONE, null);
+      assertTrue(g.isCellEmpty(m.row(), m.col()));
+      assertTrue(Thread.currentThread().isInterrupted(), "The interrupt is left for the caller");
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  void strategies_without_a_search_report_their_move() {
+    SosGameBase g = new SimpleSosGame(3);
+    List<SearchProgress> reports = new ArrayList<>();
+    Move m = new RandomStrategy(5L).choose(g, SearchLimits.ofNodes(0), reports::add);
+    assertEquals(1, reports.size());
+    assertEquals(List.of(m), reports.get(0).pv());
+  }
+}
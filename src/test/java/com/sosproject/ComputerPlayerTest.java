@@ -0,0 +1,76 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+class ComputerPlayerTest {
+
+  @Test
+  void budget_stops_a_longer_search_with_its_best_move() throws Exception {
+    try (ComputerPlayer p = new ComputerPlayer(new AlphaBetaStrategy(60_000), 100, false)) {
+      SosGameBase g = new GeneralSosGame(8);
+      long start = System.nanoTime();
+      Move m = p.move(g).get(10, TimeUnit.SECONDS);
+      assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "Interrupted at the budget, not the engine's minute");
+      assertTrue(g.isCellEmpty(m.row(), m.col()));
+    }
+  }
+
+  @Test
+  void cancel_abandons_the_search_and_frees_the_player() throws Exception {
+    Strategy sleeper = g -> {
+      try {
+        Thread.sleep(60_000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return new Move(0, 0, SosGameBase.Cell.S);
+    };
+    try (ComputerPlayer p = new ComputerPlayer(sleeper, 200, false)) {
+      SosGameBase g = new SimpleSosGame(3);
+      CompletableFuture<Move> first = p.move(g);
+      p.cancel();
+      assertTrue(first.isCancelled());
+      assertEquals(new Move(0, 0, SosGameBase.Cell.S), p.move(g).get(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  void ponder_hit_turns_the_ponder_search_into_the_move() throws Exception {
+    AlphaBetaStrategy engine = new AlphaBetaStrategy(200);
+    try (ComputerPlayer p = new ComputerPlayer(engine, 200, true)) {
+      SosGameBase g = new GeneralSosGame(5);
+      g.makeMove(p.move(g).get(10, TimeUnit.SECONDS));
+      assertFalse(g.isPlayerATurn(), "Nothing to score on the first move, so the turn passes");
+      Move expected = p.getPredictedReply();
+      assertNotNull(expected);
+
+      p.ponder(g);
+      g.makeMove(expected);
+      Move reply = p.move(g).get(10, TimeUnit.SECONDS);
+      assertEquals(1, p.getPonderHits());
+      assertTrue(g.isCellEmpty(reply.row(), reply.col()));
+
+      // Answer the next prediction with some other move: a miss.
+      g.makeMove(reply);
+      if (g.getStatus() == SosGameBase.Status.IN_PROGRESS && !g.isPlayerATurn()) {
+        Move predicted = p.getPredictedReply();
+        p.ponder(g);
+        int n = g.getSize();
+        for (int k = 0; k < g.getEmptyCount(); k++) {
+          int cell = g.getEmptyCell(k);
+          Move other = new Move(cell / n, cell % n, SosGameBase.Cell.O);
+          if (!other.equals(predicted)) {
+            g.makeMove(other);
+            break;
+          }
+        }
+        if (g.getStatus() == SosGameBase.Status.IN_PROGRESS) p.move(g).get(10, TimeUnit.SECONDS);
+        assertEquals(predicted == null ? 0 : 1, p.getPonderMisses());
+      }
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+
+class EngineMetricsTest {
+
+  @Test
+  void percentiles_are_within_the_bucket_precision() {
+    LatencyHistogram h = new LatencyHistogram("t");
+    for (long v = 1; v <= 100_000; v++) h.record(v);
+    assertEquals(100_000, h.getCount());
+    assertEquals(50_000.5, h.getMean(), 1e-9);
+    assertEquals(100_000, h.getMax());
+    assertEquals(50_000, h.getP50(), 50_000 * 0.04);
+    assertEquals(99_000, h.getP99(), 99_000 * 0.04);
+    assertEquals(1, h.percentile(0));
+    h.reset();
+    assertEquals(0, h.getCount());
+    assertEquals(0, h.getP99());
+  }
+
+  @Test
+  void every_value_lands_in_a_bucket_that_contains_it() {
+    for (long v : new long[] { 0, 1, 31, 32, 33, 63, 64, 1_000, 123_456_789, Long.MAX_VALUE }) {
+      int b = LatencyHistogram.bucket(v);
+      long mid = LatencyHistogram.middle(b);
+      assertEquals(b, LatencyHistogram.bucket(mid), "Middle of the bucket for " + v);
+      assertTrue(Math.abs(mid - v) <= Math.max(1, v / 32), v + " -> " + mid);
+    }
+  }
+
+  @Test
+  void concurrent_recording_loses_nothing() throws Exception {
+    LatencyHistogram h = new LatencyHistogram("t");
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      threads.add(Thread.ofPlatform().start(() -> {
+        for (int i = 0; i < 50_000; i++) h.record(i & 1023);
+      }));
+    }
+    for (Thread t : threads) t.join();
+    assertEquals(200_000, h.getCount());
+    assertEquals(1023, h.getMax());
+  }
+
+  @Test
+  void registers_its_histograms_and_totals_as_mbeans() throws Exception {
+    MBeanServer server = MBeanServerFactory.newMBeanServer();
+    EngineMetrics m = new EngineMetrics();
+    m.register(server);
+    try {
+      m.placeLetter.record(1_500);
+      m.countedSos(System.nanoTime(), 2);
+      m.searched(System.nanoTime(), 5_000, -1);
+      ObjectName totals = new ObjectName("com.sosproject:type=EngineMetrics");
+      assertEquals(1L, server.getAttribute(totals, "Placements"));
+      assertEquals(2L, server.getAttribute(totals, "SosLinesFound"));
+      assertEquals(5_000L, server.getAttribute(totals, "NodesSearched"));
+      assertEquals(1L, server.getAttribute(new ObjectName("com.sosproject:type=EngineMetrics,name=search"), "Count"));
+      assertEquals(0L, server.getAttribute(new ObjectName("com.sosproject:type=EngineMetrics,name=searchAllocated"), "Count"),
+          "No allocation sample without a starting count");
+      assertTrue(((String) server.invoke(totals, "report", null, null)).contains("placeLetter"));
+    } finally {
+      m.unregister(server);
+    }
+    assertTrue(server.queryNames(new ObjectName("com.sosproject:*"), null).isEmpty());
+  }
+}
@@ -0,0 +1,75 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class EvaluationCacheTest {
+
+  @Test
+  void stores_reads_and_counts() {
+    EvaluationCache cache = new EvaluationCache(4);
+    assertEquals(EvaluationCache.MISS, cache.get(42L));
+    cache.put(42L, 7L);
+    assertEquals(7L, cache.get(42L));
+    // Same slot, different key: replaces and counts an eviction.
+    long other = 42L + cache.capacity();
+    cache.put(other, 9L);
+    assertEquals(EvaluationCache.MISS, cache.get(42L));
+    assertEquals(9L, cache.get(other));
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(1, cache.getEvictions());
+    assertThrows(IllegalArgumentException.class, () -> cache.put(1L, 0L));
+  }
+
+  @Test
+  void concurrent_writers_never_produce_a_wrong_hit() throws InterruptedException {
+    EvaluationCache cache = new EvaluationCache(64);
+    List<Thread> threads = new ArrayList<>();
+    List<Throwable> errors = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int seed = t;
+      Thread th = new Thread(() -> {
+        Random rng = new Random(seed);
+        for (int i = 0; i < 200_000; i++) {
+          long key = rng.nextInt(1000);
+          // The value is a function of the key, so any hit can be checked.
+          if (rng.nextBoolean()) cache.put(key, key * 31 + 1);
+          else {
+            long v = cache.get(key);
+            if (v != EvaluationCache.MISS && v != key * 31 + 1) {
+              synchronized (errors) { errors.add(new AssertionError("Wrong value for " + key)); }
+              return;
+            }
+          }
+        }
+      });
+      threads.add(th);
+      th.start();
+    }
+    for (Thread th : threads) th.join();
+    assertTrue(errors.isEmpty(), errors.toString());
+  }
+
+  @Test
+  void strategies_sharing_a_cache_agree_with_a_private_search() {
+    EvaluationCache cache = new EvaluationCache(1 << 16);
+    SosGameBase g = new GeneralSosGame(4);
+    Strategy opening = new RandomStrategy(6L);
+    for (int i = 0; i < 6; i++) g.makeMove(opening.choose(g));
+    AlphaBetaStrategy alone = new AlphaBetaStrategy(60_000, 16, 1 << 16);
+    AlphaBetaStrategy first = new AlphaBetaStrategy(60_000, 16, 1 << 16, cache);
+    AlphaBetaStrategy second = new AlphaBetaStrategy(60_000, 16, 1 << 16, cache);
+    alone.choose(g);
+    first.choose(g);
+    second.choose(g);
+    assertEquals(alone.getLastValue(), first.getLastValue());
+    assertEquals(alone.getLastValue(), second.getLastValue());
+    assertTrue(second.getLastNodes() < first.getLastNodes(), "The second search should reuse the first one's work");
+    assertTrue(cache.getHits() > 0);
+  }
+}
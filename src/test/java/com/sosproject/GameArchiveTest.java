@@ -0,0 +1,144 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+
+class GameArchiveTest {
+
+  @Test
+  void any_position_of_any_game_matches_a_replay() throws IOException {
+    Path f = Files.createTempFile("sos", ".sosa");
+    try {
+      List<List<Move>> games = new ArrayList<>();
+      // Two sessions, so the second has to append after the first one's index.
+      try (GameArchiveWriter w = new GameArchiveWriter(f)) {
+        for (int i = 0; i < 20; i++) games.add(record(w, i));
+      }
+      try (GameArchiveWriter w = new GameArchiveWriter(f)) {
+        assertEquals(20, w.getGameCount());
+        for (int i = 20; i < 30; i++) games.add(record(w, i));
+      }
+
+      try (GameArchive archive = new GameArchive(f)) {
+        assertEquals(games.size(), archive.getGameCount());
+        for (int n = 0; n < games.size(); n++) {
+          List<Move> moves = games.get(n);
+          GameArchive.Entry e = archive.entry(n);
+          assertEquals(moves.size(), e.moveCount());
+          SosGameBase ref = SosGames.create(e.size(), e.mode());
+          for (int ply = 0; ply <= moves.size(); ply++) {
+            if (ply > 0) {
+              ref.makeMove(moves.get(ply - 1));
+              assertEquals(moves.get(ply - 1), archive.move(n, ply - 1));
+            }
+            if (ply % 7 == 0 || ply == moves.size()) assertSamePosition(ref, archive.position(n, ply));
+          }
+          assertEquals(ref.getStatus(), e.status());
+          assertEquals(ref.getScoreA(), e.scoreA());
+        }
+      }
+    } finally {
+      Files.deleteIfExists(f);
+    }
+  }
+
+  @Test
+  void restored_position_plays_on_and_undoes_to_its_keyframe() throws IOException {
+    Path f = Files.createTempFile("sos", ".sosa");
+    try {
+      List<Move> moves;
+      try (GameArchiveWriter w = new GameArchiveWriter(f)) {
+        moves = record(w, 2); // General, so it fills the board
+      }
+      int ply = GameArchiveWriter.MIN_KEYFRAME_EVERY + 5;
+      try (GameArchive archive = new GameArchive(f)) {
+        SosGameBase g = archive.position(0, ply);
+        assertEquals(ply, g.getMoveCount());
+        g.undo(5);
+        assertFalse(g.canUndo(), "History starts at the keyframe");
+        assertSamePosition(archive.position(0, GameArchiveWriter.MIN_KEYFRAME_EVERY), g);
+        g.makeMove(moves.get(GameArchiveWriter.MIN_KEYFRAME_EVERY));
+        assertTrue(g.canUndo());
+        assertSamePosition(archive.position(0, GameArchiveWriter.MIN_KEYFRAME_EVERY + 1), g);
+      }
+    } finally {
+      Files.deleteIfExists(f);
+    }
+  }
+
+  @Test
+  void an_append_that_never_closes_keeps_the_archived_games() throws IOException {
+    Path f = Files.createTempFile("sos", ".sosa");
+    Path pending = f.resolveSibling(f.getFileName() + ".pending");
+    try {
+      List<List<Move>> games = new ArrayList<>();
+      try (GameArchiveWriter w = new GameArchiveWriter(f)) {
+        for (int i = 0; i < 5; i++) games.add(record(w, i));
+      }
+      byte[] before = Files.readAllBytes(f);
+
+      // A session that adds games and dies before close(): the archive is as it was.
+      GameArchiveWriter crashed = new GameArchiveWriter(f);
+      for (int i = 5; i < 8; i++) record(crashed, i);
+      assertArrayEquals(before, Files.readAllBytes(f));
+      try (GameArchive archive = new GameArchive(f)) {
+        assertEquals(5, archive.getGameCount());
+        assertEquals(games.get(4), replay(archive, 4));
+      }
+
+      // A close cut off while moving the games in leaves a torn tail; reopening rolls it back.
+      Files.write(f, new byte[1000], StandardOpenOption.APPEND);
+      try (GameArchiveWriter w = new GameArchiveWriter(f)) {
+        assertEquals(5, w.getGameCount());
+        games.add(record(w, 9));
+      }
+      assertFalse(Files.exists(pending));
+      try (GameArchive archive = new GameArchive(f)) {
+        assertEquals(6, archive.getGameCount());
+        for (int n = 0; n < 6; n++) assertEquals(games.get(n), replay(archive, n));
+      }
+    } finally {
+      Files.deleteIfExists(pending);
+      Files.deleteIfExists(f);
+    }
+  }
+
+  private static List<Move> replay(GameArchive archive, long game) throws IOException {
+    List<Move> moves = new ArrayList<>();
+    for (int k = 0; k < archive.entry(game).moveCount(); k++) moves.add(archive.move(game, k));
+    return moves;
+  }
+
+  /** A random 10x10 game, alternating modes; returns its moves. */
+  private static List<Move> record(GameArchiveWriter w, long seed) throws IOException {
+    SosGameBase g = seed % 2 == 0 ? new GeneralSosGame(10) : new SimpleSosGame(10);
+    Strategy ai = new RandomStrategy(seed);
+    List<Move> moves = new ArrayList<>();
+    w.start(g, PlayerType.COMPUTER, PlayerType.COMPUTER);
+    while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+      boolean a = g.isPlayerATurn();
+      Move m = ai.choose(g);
+      g.makeMove(m);
+      moves.add(m);
+      w.recordMove(moves.size(), a, m.row(), m.col(), m.letter(), g);
+    }
+    w.finish(g);
+    return moves;
+  }
+
+  private static void assertSamePosition(SosGameBase expected, SosGameBase actual) {
+    assertEquals(expected.getMoveCount(), actual.getMoveCount());
+    assertEquals(expected.getScoreA(), actual.getScoreA());
+    assertEquals(expected.getScoreB(), actual.getScoreB());
+    assertEquals(expected.isPlayerATurn(), actual.isPlayerATurn());
+    assertEquals(expected.getStatus(), actual.getStatus());
+    for (int r = 0; r < expected.getSize(); r++) {
+      for (int c = 0; c < expected.getSize(); c++) assertEquals(expected.getCell(r, c), actual.getCell(r, c));
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+class GameServerTest {
+
+  @Test
+  void human_move_is_answered_by_the_computer() throws Exception {
+    try (GameServer server = new GameServer(0, 2); HttpClient http = HttpClient.newHttpClient()) {
+      String base = "http://localhost:" + server.getPort();
+      HttpResponse<String> created = send(http, "POST", base + "/games?size=3&mode=GENERAL&a=HUMAN&b=COMPUTER&strategy=random");
+      assertEquals(201, created.statusCode());
+      String id = LoadGenerator.field(created.body(), "id");
+      assertEquals(".........", LoadGenerator.field(created.body(), "board"));
+
+      HttpResponse<String> moved = send(http, "POST", base + "/games/" + id + "/moves?row=1&col=1&letter=O");
+      assertEquals(200, moved.statusCode(), moved.body());
+      assertEquals('O', LoadGenerator.field(moved.body(), "board").charAt(4));
+
+      String after = send(http, "GET", base + "/games/" + id + "?after=1&timeout=5000").body();
+      assertEquals("2", LoadGenerator.field(after, "moves"), "The computer replies on its own");
+      assertEquals("A", LoadGenerator.field(after, "turn"));
+
+      assertEquals(409, send(http, "POST", base + "/games/" + id + "/moves?row=1&col=1&letter=S").statusCode(), "Cell is taken");
+      assertEquals(400, send(http, "POST", base + "/games/" + id + "/moves?row=9&col=0&letter=S").statusCode());
+      assertEquals(404, send(http, "GET", base + "/games/999").statusCode());
+      HttpResponse<String> bad = send(http, "POST", base + "/games/" + id + "/moves?row=0&col=0&letter=S%0A%01");
+      assertEquals(400, bad.statusCode());
+      assertTrue(bad.body().endsWith("S\\n\\u0001\"}"), "Control characters escaped: " + bad.body());
+      assertEquals(400, send(http, "POST", base + "/games?size=" + (GameServer.MAX_SIZE + 1)).statusCode(), "Board too large");
+      assertEquals(200, send(http, "DELETE", base + "/games/" + id).statusCode());
+      assertEquals(0, server.getSessionCount());
+    }
+  }
+
+  @Test
+  void load_generator_plays_every_game() throws Exception {
+    try (GameServer server = new GameServer(0, 2)) {
+      LoadGenerator.Result r = new LoadGenerator(URI.create("http://localhost:" + server.getPort()), 4, GameMode.SIMPLE, "random")
+          .clients(16).seed(3L).run(64);
+      assertEquals(64, r.games());
+      assertEquals(0, r.errors());
+      assertTrue(r.moves() >= 64, "At least one human move per game");
+      assertTrue(r.percentile(50) <= r.percentile(99));
+      assertEquals(0, server.getSessionCount(), "Clients delete their games");
+    }
+  }
+
+  private static HttpResponse<String> send(HttpClient http, String method, String url) throws Exception {
+    return http.send(HttpRequest.newBuilder(URI.create(url)).method(method, HttpRequest.BodyPublishers.noBody()).build(),
+        HttpResponse.BodyHandlers.ofString());
+  }
+}
@@ -0,0 +1,88 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class GameSessionTest {
+
+  @Test
+  void concurrent_submissions_of_one_move_apply_it_once() throws Exception {
+    GameSession s = new GameSession(1, new GeneralSosGame(5), PlayerType.HUMAN, PlayerType.HUMAN, null, 0, null);
+    try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      // The same move retried many times over: every attempt succeeds, the move is played once.
+      List<Future<String>> retries = new ArrayList<>();
+      for (int i = 0; i < 32; i++) retries.add(clients.submit(() -> s.play(0, 2, 2, SosGameBase.Cell.S).get()));
+      for (Future<String> f : retries) assertEquals("1", LoadGenerator.field(f.get(), "moves"));
+
+      // Different moves racing for move 1: exactly one wins, the others are stale.
+      AtomicInteger won = new AtomicInteger(), stale = new AtomicInteger();
+      List<Future<?>> race = new ArrayList<>();
+      for (int c = 0; c < 5; c++) {
+        int col = c;
+        race.add(clients.submit(() -> {
+          try {
+            s.play(1, 0, col, SosGameBase.Cell.O).get();
+            won.incrementAndGet();
+          } catch (ExecutionException e) {
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            stale.incrementAndGet();
+          }
+          return null;
+        }));
+      }
+      for (Future<?> f : race) f.get();
+      assertEquals(1, won.get());
+      assertEquals(4, stale.get());
+      assertEquals("2", LoadGenerator.field(s.state(), "moves"));
+    } finally {
+      s.close();
+    }
+    ExecutionException closed = assertThrows(ExecutionException.class, () -> s.play(-1, 4, 4, SosGameBase.Cell.S).get());
+    assertInstanceOf(IllegalStateException.class, closed.getCause());
+  }
+
+  @Test
+  void illegal_computer_move_stops_the_computer_not_the_session() throws Exception {
+    Strategy cheat = g -> new Move(0, 0, SosGameBase.Cell.S); // taken by the human's first move
+    ExecutorService compute = Executors.newSingleThreadExecutor();
+    GameSession s = new GameSession(1, new GeneralSosGame(3), PlayerType.HUMAN, PlayerType.COMPUTER, cheat, 1000, compute);
+    try {
+      s.play(0, 0, 0, SosGameBase.Cell.O).get(5, TimeUnit.SECONDS);
+      String after = s.await(1).get(5, TimeUnit.SECONDS);
+      assertTrue(after.contains("illegal move"), after);
+      assertEquals("1", LoadGenerator.field(after, "moves"));
+      ExecutionException stopped = assertThrows(ExecutionException.class,
+          () -> s.play(1, 1, 1, SosGameBase.Cell.S).get(5, TimeUnit.SECONDS));
+      assertInstanceOf(IllegalStateException.class, stopped.getCause());
+      assertEquals(after, s.await(5).get(5, TimeUnit.SECONDS), "Waiters are answered, not left hanging");
+    } finally {
+      s.close();
+      compute.shutdownNow();
+    }
+    ExecutionException closed = assertThrows(ExecutionException.class, () -> s.play(-1, 2, 2, SosGameBase.Cell.S).get(5, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalStateException.class, closed.getCause());
+  }
+
+  @Test
+  void registry_finds_sessions_across_stripes() throws Exception {
+    GameRegistry r = new GameRegistry(8);
+    try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 1000; i++) {
+        clients.execute(() -> r.register(new GameSession(r.nextId(), new SimpleSosGame(3), PlayerType.HUMAN, PlayerType.HUMAN, null, 0, null)));
+      }
+    }
+    assertEquals(1000, r.size());
+    for (long id = 1; id <= 1000; id++) assertEquals(id, r.get(id).getId());
+    r.remove(7).close();
+    assertNull(r.get(7));
+    List<GameSession> rest = r.removeAll();
+    assertEquals(999, rest.size());
+    assertEquals(0, r.size());
+    rest.forEach(GameSession::close);
+  }
+}
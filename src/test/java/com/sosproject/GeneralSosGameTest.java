@@ -3,6 +3,9 @@ package com.sosproject;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 class GeneralSosGameTest {
 
   @Test
@@ -89,4 +92,117 @@ class GeneralSosGameTest {
     assertThrows(IllegalStateException.class, () -> g.placeLetter(0, 0, SosGameBase.Cell.S));
     assertEquals(status, g.getStatus(), "Status should remain the same after illegal move attempt.");
   }
+
+  @Test
+  void full_board_recount_matches_incremental_scores() {
+    for (int size = 3; size <= 10; size++) {
+      SosGameBase g = new GeneralSosGame(size);
+      Strategy ai = new RandomStrategy(size);
+      while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+        Move m = ai.choose(g);
+        g.placeLetter(m.row(), m.col(), m.letter());
+        assertEquals(g.getScoreA() + g.getScoreB(), g.countAllSOS(), "size " + size);
+      }
+    }
+  }
+
+  @Test
+  void unmake_restores_extra_turn_scores_and_status() {
+    SosGameBase g = new GeneralSosGame(3);
+    g.placeLetter(0, 0, SosGameBase.Cell.S); // A
+    g.placeLetter(0, 1, SosGameBase.Cell.O); // B
+    g.placeLetter(0, 2, SosGameBase.Cell.S); // A -> +1, keeps turn
+    g.unmakeMove();
+    assertEquals(0, g.getScoreA());
+    assertTrue(g.isPlayerATurn(), "Undo should hand the turn back to the mover");
+    assertTrue(g.isCellEmpty(0, 2));
+    assertEquals(2, g.getMoveCount());
+  }
+
+  @Test
+  void undo_walks_a_whole_game_back_to_the_start() {
+    SosGameBase g = new GeneralSosGame(6);
+    Strategy ai = new RandomStrategy(11L);
+    var states = new java.util.ArrayList<String>();
+    while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+      states.add(describe(g));
+      g.makeMove(ai.choose(g));
+    }
+    assertNotEquals(SosGameBase.Status.IN_PROGRESS, g.getStatus());
+    for (int k = states.size() - 1; k >= 0; k--) {
+      g.unmakeMove();
+      assertEquals(states.get(k), describe(g));
+    }
+    assertFalse(g.canUndo());
+    assertThrows(IllegalStateException.class, g::unmakeMove);
+  }
+
+  @Test
+  void move_events_carry_the_lines_deltas_and_turn() {
+    SosGameBase g = new GeneralSosGame(3);
+    List<String> seen = new ArrayList<>();
+    MoveEvent[] last = new MoveEvent[1];
+    MoveListener l = e -> {
+      seen.add(e.getMoveNumber() + ":" + e.getLineCount() + ":" + e.getScoreDeltaA() + ":" + e.getScoreDeltaB() + ":" + e.isTurnKept());
+      if (last[0] != null) assertSame(last[0], e, "One event per game, reused");
+      last[0] = e;
+    };
+    g.addMoveListener(l);
+    g.placeLetter(0, 1, SosGameBase.Cell.S); // A
+    g.placeLetter(1, 0, SosGameBase.Cell.S); // B
+    g.placeLetter(2, 1, SosGameBase.Cell.S); // A
+    g.placeLetter(1, 2, SosGameBase.Cell.S); // B
+    g.placeLetter(1, 1, SosGameBase.Cell.O); // A: two lines through the centre
+    MoveEvent e = last[0];
+    assertTrue(e.isByPlayerA());
+    assertEquals(4, e.getCell());
+    assertEquals(SosGameBase.Cell.O, e.getLetter());
+    assertEquals(2, e.getLineCount());
+    for (int k = 0; k < 2; k++) assertEquals(4, (e.getLineFirst(k) + e.getLineLast(k)) / 2, "The O is halfway");
+    assertThrows(IndexOutOfBoundsException.class, () -> e.getLineFirst(2));
+    assertEquals(List.of("1:0:0:0:false", "2:0:0:0:false", "3:0:0:0:false", "4:0:0:0:false", "5:2:2:0:true"), seen);
+
+    g.copy().placeLetter(0, 0, SosGameBase.Cell.O);
+    assertEquals(5, seen.size(), "Copies do not publish");
+    g.removeMoveListener(l);
+    g.placeLetter(0, 0, SosGameBase.Cell.O);
+    assertEquals(5, seen.size());
+  }
+
+  @Test
+  void undo_events_describe_the_move_taken_back_and_listeners_cannot_move() {
+    SosGameBase g = new GeneralSosGame(3);
+    List<String> undone = new ArrayList<>();
+    g.addMoveListener(new MoveListener() {
+      @Override public void moveMade(MoveEvent e) {
+        if (e.getMoveNumber() == 6) e.getGame().placeLetter(2, 2, SosGameBase.Cell.S);
+      }
+      @Override public void moveUndone(MoveEvent e) {
+        assertTrue(e.getGame().isCellEmpty(e.getRow(), e.getCol()), "Told after the undo");
+        undone.add(e.getMoveNumber() + ":" + e.getCell() + ":" + e.getLetter() + ":" + e.getLineCount() + ":" + e.getScoreDeltaA()
+            + ":" + e.isTurnKept() + ":" + e.getScoreA());
+      }
+    });
+    g.placeLetter(0, 1, SosGameBase.Cell.S); // A
+    g.placeLetter(1, 0, SosGameBase.Cell.S); // B
+    g.placeLetter(2, 1, SosGameBase.Cell.S); // A
+    g.placeLetter(1, 2, SosGameBase.Cell.S); // B
+    g.placeLetter(1, 1, SosGameBase.Cell.O); // A: two lines, turn kept
+    g.undo(2);
+    g.placeLetter(1, 2, SosGameBase.Cell.S);
+    g.placeLetter(1, 1, SosGameBase.Cell.O);
+    assertEquals(List.of("5:4:O:2:2:true:0", "4:5:S:0:0:false:0"), undone);
+
+    assertThrows(IllegalStateException.class, () -> g.placeLetter(0, 0, SosGameBase.Cell.S), "Re-entrant move");
+    assertEquals(6, g.getMoveCount(), "The listener's move was refused, the outer one stands");
+    assertTrue(g.isCellEmpty(2, 2));
+  }
+
+  private static String describe(SosGameBase g) {
+    StringBuilder sb = new StringBuilder();
+    for (int r = 0; r < g.getSize(); r++) {
+      for (int c = 0; c < g.getSize(); c++) sb.append(g.getCell(r, c).name().charAt(0));
+    }
+    return sb + " " + g.getScoreA() + ":" + g.getScoreB() + " " + g.isPlayerATurn() + " " + g.getStatus();
+  }
 }
@@ -0,0 +1,45 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+class LineTableTest {
+
+  @Test
+  void tables_are_shared_per_size() {
+    assertSame(LineTable.forSize(7), LineTable.forSize(7));
+    assertThrows(IllegalArgumentException.class, () -> LineTable.forSize(LineTable.MAX_SIZE + 1));
+  }
+
+  @Test
+  void lists_every_line_through_each_cell_with_its_role() {
+    LineTable t = LineTable.forSize(3);
+    assertEquals(8, t.lineCount(), "3 rows, 3 columns, 2 diagonals");
+    assertEquals(4, t.cellLineCount(4), "The centre is the middle of all four lines through it");
+    for (int k = 0; k < 4; k++) assertEquals(1, t.cellRole(4, k));
+    for (int cell = 0; cell < 9; cell++) {
+      for (int k = 0; k < t.cellLineCount(cell); k++) {
+        assertEquals(cell, t.lineCell(t.cellLine(cell, k), t.cellRole(cell, k)));
+      }
+    }
+  }
+
+  @Test
+  void table_recount_agrees_with_word_parallel_recount() {
+    for (int size : new int[] { 3, 6, 9, 12 }) {
+      SosGameBase g = new GeneralSosGame(size);
+      Strategy ai = new RandomStrategy(size);
+      while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+        g.makeMove(ai.choose(g));
+        assertEquals(g.countAllSOS(), LineTable.forSize(size).countCompleted(bits(g, SosGameBase.Cell.S), bits(g, SosGameBase.Cell.O)));
+      }
+    }
+  }
+
+  private static long[] bits(SosGameBase g, SosGameBase.Cell letter) {
+    int n = g.getSize();
+    long[] b = new long[Bitboard.words(n * n)];
+    for (int cell = 0; cell < n * n; cell++) if (g.getCell(cell / n, cell % n) == letter) Bitboard.set(b, cell);
+    return b;
+  }
+}
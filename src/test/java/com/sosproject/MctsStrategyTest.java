@@ -0,0 +1,68 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+class MctsStrategyTest {
+
+  @Test
+  void finds_the_winning_move_in_simple() {
+    SosGameBase g = new SimpleSosGame(3);
+    g.placeLetter(0, 0, SosGameBase.Cell.S); // A
+    g.placeLetter(2, 2, SosGameBase.Cell.O); // B
+    g.placeLetter(0, 1, SosGameBase.Cell.O); // A
+    g.placeLetter(2, 0, SosGameBase.Cell.O); // B
+    Move m = new MctsStrategy(200, 2, 42L).choose(g);
+    assertEquals(new Move(0, 2, SosGameBase.Cell.S), m);
+  }
+
+  @Test
+  void plays_legal_moves_to_the_end_and_reports_playouts() {
+    SosGameBase g = new GeneralSosGame(4);
+    MctsStrategy ai = new MctsStrategy(10, 2, 7L);
+    while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+      int before = g.getMoveCount();
+      Move m = ai.choose(g);
+      assertEquals(before, g.getMoveCount(), "Search must not touch the caller's game");
+      assertTrue(g.isCellEmpty(m.row(), m.col()));
+      g.makeMove(m);
+    }
+    assertTrue(ai.getLastPlayouts() > 0);
+    assertTrue(ai.getLastPlayoutsPerSecond() > 0);
+  }
+
+  @Test
+  void single_thread_searches_on_the_caller_and_close_stops_the_pool() {
+    SosGameBase g = new GeneralSosGame(5);
+    try (MctsStrategy inline = new MctsStrategy(60_000, 1, 3L)) {
+      Thread.currentThread().interrupt();
+      long start = System.nanoTime();
+      assertNotNull(inline.choose(g));
+      assertTrue(Thread.interrupted(), "The caller's interrupt ends the search and stays set");
+      assertTrue(System.nanoTime() - start < 5_000_000_000L);
+    }
+    MctsStrategy pooled = new MctsStrategy(5, 2, 3L);
+    assertNotNull(pooled.choose(g));
+    pooled.close();
+    assertThrows(RejectedExecutionException.class, () -> pooled.choose(g));
+  }
+
+  @Test
+  void node_limit_splits_playouts_between_workers_and_reports_the_line() {
+    SosGameBase g = new GeneralSosGame(4);
+    List<SearchProgress> reports = new ArrayList<>();
+    MctsStrategy ai = new MctsStrategy(60_000, 3, 7L);
+    Move m = ai.choose(g, SearchLimits.ofNodes(1000), reports::add);
+    assertEquals(1000, ai.getLastPlayouts());
+    assertEquals(1, reports.size());
+    SearchProgress p = reports.get(0);
+    assertEquals(1000, p.nodes());
+    assertEquals(m, p.pv().get(0));
+    assertEquals(p.pv().size(), p.depth());
+    assertTrue(p.value() >= 0 && p.value() <= 1000);
+  }
+}
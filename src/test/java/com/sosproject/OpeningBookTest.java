@@ -0,0 +1,69 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+class OpeningBookTest {
+
+  @Test
+  void book_counts_every_game_and_answers_in_any_orientation() throws Exception {
+    Path f = Files.createTempFile("sos", ".book");
+    try {
+      long entries = new OpeningBookBuilder(5, GameMode.GENERAL, RandomStrategy::new, 3).threads(2).seed(9L)
+          .build(3000, f);
+      try (OpeningBook book = OpeningBook.open(f)) {
+        assertEquals(entries, book.getEntryCount());
+        long empty = new GeneralSosGame(5).getCanonicalHash();
+        long games = 0;
+        for (long i = 0; i < book.getEntryCount(); i++) {
+          if (i > 0) assertTrue(book.position(i - 1) <= book.position(i), "Entries must be sorted");
+          if (book.position(i) == empty) games += book.games(i);
+        }
+        assertEquals(3000, games, "Every game starts from the empty board");
+
+        // The same opening reached in two orientations gets the same book move, rotated.
+        SosGameBase g = new GeneralSosGame(5), rotated = new GeneralSosGame(5);
+        g.placeLetter(0, 1, SosGameBase.Cell.S);
+        rotated.placeLetter(1, 4, SosGameBase.Cell.S); // (r, c) -> (c, 4 - r)
+        int m = book.bestMove(g, 1), mr = book.bestMove(rotated, 1);
+        assertTrue(m >= 0 && mr >= 0);
+        int cell = m >>> 1;
+        assertEquals((cell % 5) * 5 + (4 - cell / 5), mr >>> 1);
+        assertEquals(m & 1, mr & 1);
+      }
+    } finally {
+      Files.deleteIfExists(f);
+    }
+  }
+
+  @Test
+  void boards_too_large_for_the_header_are_refused() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new OpeningBookBuilder(OpeningBook.MAX_SIZE + 1, GameMode.SIMPLE, RandomStrategy::new, 4));
+  }
+
+  @Test
+  void strategy_leaves_the_book_after_its_plies() throws IOException, InterruptedException {
+    Path f = Files.createTempFile("sos", ".book");
+    try {
+      new OpeningBookBuilder(4, GameMode.SIMPLE, RandomStrategy::new, 2).threads(1).build(500, f);
+      try (OpeningBook book = OpeningBook.open(f)) {
+        Strategy s = new BookStrategy(book, new RandomStrategy(1L), 1);
+        SosGameBase g = new SimpleSosGame(4);
+        assertTrue(book.bestMove(g, 1) >= 0);
+        while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+          if (g.getMoveCount() >= 2) assertEquals(-1, book.bestMove(g, 1));
+          Move m = s.choose(g);
+          assertTrue(g.isCellEmpty(m.row(), m.col()));
+          g.makeMove(m);
+        }
+        assertEquals(-1, book.bestMove(new GeneralSosGame(4), 1), "Book is for Simple games only");
+      }
+    } finally {
+      Files.deleteIfExists(f);
+    }
+  }
+}
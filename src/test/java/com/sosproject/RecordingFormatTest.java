@@ -0,0 +1,246 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.Arrays;
+
+class RecordingFormatTest {
+
+  @Test
+  void text_to_binary_and_back_is_lossless_and_much_smaller() throws IOException {
+    Path dir = Files.createTempDirectory("sos-rec");
+    try {
+      Path v1 = dir.resolve("game.txt"), v2 = dir.resolve("game.sos2"), back = dir.resolve("back.txt");
+      record(new TextGameRecorder(v1), new GeneralSosGame(10), 21L, true);
+
+      RecordingConverter.textToBinary(v1, v2);
+      RecordingConverter.binaryToText(v2, back);
+      assertArrayEquals(Files.readAllBytes(v1), Files.readAllBytes(back));
+      assertTrue(Files.size(v1) > 10 * Files.size(v2), Files.size(v1) + " vs " + Files.size(v2) + " bytes");
+
+      GameReplayer.Loaded a = GameReplayer.load(v1), b = GameReplayer.load(v2);
+      assertEquals(a.moves.size(), b.moves.size());
+      for (int i = 0; i < a.moves.size(); i++) {
+        assertEquals(a.moves.get(i).isPlayerA, b.moves.get(i).isPlayerA);
+        assertEquals(a.moves.get(i).row, b.moves.get(i).row);
+        assertEquals(a.moves.get(i).letter, b.moves.get(i).letter);
+      }
+      assertTrue(b.finished);
+      assertEquals(PlayerType.COMPUTER, b.playerB);
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  void corrupted_binary_fails_the_checksum() throws IOException {
+    Path f = Files.createTempFile("sos", ".sos2");
+    try {
+      record(new BinaryGameRecorder(f), new SimpleSosGame(5), 4L, true);
+      byte[] bytes = Files.readAllBytes(f);
+      bytes[bytes.length - 2] ^= 0x10; // inside the CRC
+      Files.write(f, bytes);
+      assertThrows(IOException.class, () -> GameReplayer.load(f));
+    } finally {
+      Files.deleteIfExists(f);
+    }
+  }
+
+  @Test
+  void truncated_or_torn_binary_fails_before_the_footer() throws IOException {
+    Path f = Files.createTempFile("sos", ".sos2");
+    try {
+      record(new BinaryGameRecorder(f), new GeneralSosGame(9), 6L, false);
+      byte[] bytes = Files.readAllBytes(f);
+      for (int cut : new int[] {bytes.length - 1, bytes.length - 5, bytes.length / 2}) {
+        Files.write(f, Arrays.copyOf(bytes, cut));
+        assertThrows(IOException.class, () -> GameReplayer.load(f), "Cut at " + cut + " of " + bytes.length);
+      }
+      byte[] torn = bytes.clone();
+      torn[torn.length / 2] ^= 0x04;
+      Files.write(f, torn);
+      assertThrows(IOException.class, () -> GameReplayer.load(f));
+    } finally {
+      Files.deleteIfExists(f);
+    }
+  }
+
+  @Test
+  void unfinished_binary_recording_keeps_its_moves() throws IOException {
+    Path f = Files.createTempFile("sos", ".sos2");
+    try {
+      int moves = record(new BinaryGameRecorder(f), new GeneralSosGame(6), 8L, false);
+      try (BinaryGameReader r = new BinaryGameReader(f)) {
+        int n = 0;
+        while (r.next()) n++;
+        assertEquals(moves, n);
+        assertFalse(r.isFinished());
+      }
+    } finally {
+      Files.deleteIfExists(f);
+    }
+  }
+
+  @Test
+  void async_recorder_writes_the_same_bytes_as_the_text_recorder() throws IOException {
+    Path dir = Files.createTempDirectory("sos-rec");
+    try (AsyncRecordingService service = new AsyncRecordingService(1024, 5L)) {
+      Path sync = dir.resolve("sync.txt");
+      record(new TextGameRecorder(sync), new GeneralSosGame(7), 13L, true);
+      for (int i = 0; i < 3; i++) {
+        Path async = dir.resolve("async" + i + ".txt");
+        record(service.recorder(async), new GeneralSosGame(7), 13L, true);
+        assertArrayEquals(Files.readAllBytes(sync), Files.readAllBytes(async));
+      }
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  void closing_the_service_writes_open_games_and_refuses_new_records() throws IOException {
+    Path dir = Files.createTempDirectory("sos-rec");
+    try {
+      Path unfinished = dir.resolve("unfinished.txt"), sync = dir.resolve("sync.txt");
+      record(new TextGameRecorder(sync), new GeneralSosGame(7), 13L, false);
+      AsyncRecordingService service = new AsyncRecordingService();
+      // Never finished or closed by its recorder: the writer flushes and closes it on the way out.
+      AsyncGameRecorder open = service.recorder(unfinished);
+      SosGameBase g = new GeneralSosGame(7);
+      Strategy ai = new RandomStrategy(13L);
+      open.start(g, PlayerType.HUMAN, PlayerType.COMPUTER);
+      for (int index = 1; g.getStatus() == SosGameBase.Status.IN_PROGRESS; index++) {
+        boolean a = g.isPlayerATurn();
+        Move m = ai.choose(g);
+        g.makeMove(m);
+        open.recordMove(index, a, m.row(), m.col(), m.letter(), g);
+      }
+      long start = System.nanoTime();
+      service.close();
+      assertTrue(System.nanoTime() - start < 500_000_000L, "Close wakes the writer rather than waiting out its poll");
+      assertArrayEquals(Files.readAllBytes(sync), Files.readAllBytes(unfinished));
+
+      AsyncGameRecorder late = service.recorder(dir.resolve("late.txt"));
+      assertThrows(IOException.class, () -> late.start(new GeneralSosGame(7), PlayerType.HUMAN, PlayerType.HUMAN));
+      assertFalse(Files.exists(dir.resolve("late.txt")));
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  void recording_from_move_events_matches_recording_each_move() throws IOException {
+    Path dir = Files.createTempDirectory("sos-rec");
+    try {
+      Path direct = dir.resolve("direct.txt"), events = dir.resolve("events.txt");
+      record(new TextGameRecorder(direct), new GeneralSosGame(6), 21L, true);
+      SosGameBase g = new GeneralSosGame(6);
+      GameRecorder rec = new TextGameRecorder(events);
+      g.addMoveListener(e -> {
+        try {
+          rec.recordMove(e);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+      Strategy ai = new RandomStrategy(21L);
+      try (rec) {
+        rec.start(g, PlayerType.HUMAN, PlayerType.COMPUTER);
+        while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) g.makeMove(ai.choose(g));
+        rec.finish(g);
+      }
+      assertArrayEquals(Files.readAllBytes(direct), Files.readAllBytes(events));
+    } finally {
+      deleteAll(dir);
+    }
+  }
+
+  @Test
+  void text_reader_rejects_illegal_moves() throws IOException {
+    Path f = Files.createTempFile("sos", ".txt");
+    try {
+      String header = TextGameRecorder.headerLine(3, GameMode.SIMPLE, PlayerType.HUMAN, PlayerType.HUMAN) + "\n";
+      String first = TextGameRecorder.moveLine(1, true, 1, 1, SosGameBase.Cell.O, 0, 0, SosGameBase.Status.IN_PROGRESS) + "\n";
+      Files.writeString(f, header + first
+          + TextGameRecorder.moveLine(2, false, 1, 1, SosGameBase.Cell.S, 0, 0, SosGameBase.Status.IN_PROGRESS) + "\n");
+      assertThrows(IOException.class, () -> GameReplayer.load(f), "Cell already taken");
+      Files.writeString(f, header + first
+          + TextGameRecorder.moveLine(2, true, 0, 0, SosGameBase.Cell.S, 0, 0, SosGameBase.Status.IN_PROGRESS) + "\n");
+      assertThrows(IOException.class, () -> GameReplayer.load(f), "A moved twice without scoring");
+    } finally {
+      Files.deleteIfExists(f);
+    }
+  }
+
+  @Test
+  void mapped_text_reader_streams_across_window_boundaries() throws IOException {
+    Path f = Files.createTempFile("sos", ".txt");
+    try {
+      int moves = record(new TextGameRecorder(f), new GeneralSosGame(12), 17L, true);
+      GameReplayer.Loaded all = GameReplayer.load(f);
+      assertEquals(moves, all.moves.size());
+      // A window of a couple of lines makes nearly every move cross a remap.
+      try (TextGameReader r = new TextGameReader(f, 64)) {
+        int i = 0;
+        while (r.next()) {
+          GameReplayer.MoveRec m = all.moves.get(i++);
+          assertEquals(m.isPlayerA, r.isPlayerA());
+          assertEquals(m.row, r.row());
+          assertEquals(m.col, r.col());
+          assertEquals(m.letter, r.letter());
+        }
+        assertEquals(moves, i);
+        assertTrue(r.isFinished());
+      }
+      int[] seen = {0};
+      assertEquals(moves, GameReplayer.forEachMove(f, (a, row, col, l) -> seen[0]++));
+      assertEquals(moves, seen[0]);
+      try (var stream = GameReplayer.stream(f)) {
+        assertEquals(moves, stream.count());
+      }
+    } finally {
+      Files.deleteIfExists(f);
+    }
+  }
+
+  @Test
+  void text_header_is_checked_on_first_read() throws IOException {
+    Path f = Files.createTempFile("sos", ".txt");
+    try {
+      Files.writeString(f, "not a recording\n");
+      try (TextGameReader r = new TextGameReader(f)) {
+        assertThrows(IOException.class, r::next);
+      }
+    } finally {
+      Files.deleteIfExists(f);
+    }
+  }
+
+  /** Plays a random game the way SosFrame records it; returns the number of moves. */
+  private static int record(GameRecorder rec, SosGameBase g, long seed, boolean finish) throws IOException {
+    Strategy ai = new RandomStrategy(seed);
+    int index = 0;
+    try (rec) {
+      rec.start(g, PlayerType.HUMAN, PlayerType.COMPUTER);
+      while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+        boolean a = g.isPlayerATurn();
+        Move m = ai.choose(g);
+        g.makeMove(m);
+        rec.recordMove(++index, a, m.row(), m.col(), m.letter(), g);
+      }
+      if (finish) rec.finish(g);
+    }
+    return index;
+  }
+
+  private static void deleteAll(Path dir) throws IOException {
+    try (var files = Files.list(dir)) {
+      for (Path p : files.toList()) Files.delete(p);
+    }
+    Files.delete(dir);
+  }
+}
@@ -0,0 +1,72 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class ReplayControllerTest {
+
+  @Test
+  void random_seeks_land_on_the_same_position_as_a_replay() {
+    GameReplayer.Loaded loaded = randomGame(new GeneralSosGame(10), 9L);
+    ReplayController rc = new ReplayController(loaded, 8);
+    assertEquals(0, rc.getPly());
+    Random rng = new Random(3);
+    for (int i = 0; i < 200; i++) {
+      // Mix far jumps with the single steps and short hops a slider drag produces.
+      int target = switch (i % 3) {
+        case 0 -> rng.nextInt(loaded.moves.size() + 1);
+        case 1 -> rc.getPly() + rng.nextInt(5) - 2;
+        default -> rc.getPly() + rng.nextInt(21) - 10;
+      };
+      rc.seek(target);
+      int ply = Math.max(0, Math.min(loaded.moves.size(), target));
+      assertEquals(ply, rc.getPly());
+      SosGameBase ref = replayTo(loaded, ply);
+      SosGameBase g = rc.game();
+      assertEquals(ref.getScoreA(), g.getScoreA());
+      assertEquals(ref.getScoreB(), g.getScoreB());
+      assertEquals(ref.isPlayerATurn(), g.isPlayerATurn());
+      assertEquals(ref.getStatus(), g.getStatus());
+      for (int r = 0; r < 10; r++) {
+        for (int c = 0; c < 10; c++) {
+          assertEquals(ref.getCell(r, c), g.getCell(r, c));
+          assertEquals(ref.getCell(r, c) != SosGameBase.Cell.EMPTY, rc.plyOfCell(r * 10 + c) < ply);
+        }
+      }
+    }
+  }
+
+  @Test
+  void rejects_a_recording_with_an_illegal_move() {
+    List<GameReplayer.MoveRec> moves = new ArrayList<>();
+    moves.add(new GameReplayer.MoveRec(true, 1, 1, SosGameBase.Cell.S));
+    moves.add(new GameReplayer.MoveRec(false, 1, 1, SosGameBase.Cell.O));
+    GameReplayer.Loaded loaded = new GameReplayer.Loaded(3, GameMode.GENERAL, moves);
+    assertThrows(IllegalArgumentException.class, () -> new ReplayController(loaded));
+  }
+
+  private static GameReplayer.Loaded randomGame(SosGameBase g, long seed) {
+    Strategy ai = new RandomStrategy(seed);
+    List<GameReplayer.MoveRec> moves = new ArrayList<>();
+    while (g.getStatus() == SosGameBase.Status.IN_PROGRESS) {
+      boolean a = g.isPlayerATurn();
+      Move m = ai.choose(g);
+      g.makeMove(m);
+      moves.add(new GameReplayer.MoveRec(a, m.row(), m.col(), m.letter()));
+    }
+    return new GameReplayer.Loaded(g.getSize(), g.getMode(), moves);
+  }
+
+  private static SosGameBase replayTo(GameReplayer.Loaded loaded, int ply) {
+    SosGameBase g = SosGames.create(loaded.size, loaded.mode);
+    for (int i = 0; i < ply; i++) {
+      GameReplayer.MoveRec m = loaded.moves.get(i);
+      g.placeLetter(m.row, m.col, m.letter);
+    }
+    return g;
+  }
+}
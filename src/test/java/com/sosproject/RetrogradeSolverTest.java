@@ -0,0 +1,97 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class RetrogradeSolverTest {
+
+  @Test
+  void database_agrees_with_brute_force_on_3x3() throws IOException {
+    for (GameMode mode : GameMode.values()) {
+      Path f = Files.createTempFile("sos", ".sosdb");
+      Files.delete(f);
+      try {
+        new RetrogradeSolver(3, mode, f).solve(ForkJoinPool.commonPool());
+        try (PerfectPlayDatabase db = PerfectPlayDatabase.open(f)) {
+          Random rng = new Random(mode.ordinal());
+          Strategy random = new RandomStrategy(11L);
+          for (int trial = 0; trial < 40; trial++) {
+            SosGameBase g = SosGames.create(3, mode);
+            int opening = 4 + rng.nextInt(3);
+            while (g.getMoveCount() < opening && g.getStatus() == SosGameBase.Status.IN_PROGRESS) g.makeMove(random.choose(g));
+            if (g.getStatus() != SosGameBase.Status.IN_PROGRESS) continue;
+            int expected = negamax(g);
+            assertEquals(expected, db.value(g), mode + " value");
+            // The stored move must achieve the stored value.
+            Move best = db.bestMove(g);
+            boolean mover = g.isPlayerATurn();
+            int before = g.getScoreA() - g.getScoreB();
+            g.makeMove(best);
+            int gained = (g.getScoreA() - g.getScoreB() - before) * (mover ? 1 : -1);
+            boolean over = g.getStatus() != SosGameBase.Status.IN_PROGRESS;
+            int after = mode == GameMode.SIMPLE
+                ? over ? (g.getStatus() == SosGameBase.Status.DRAW ? 0 : PerfectPlayDatabase.SIMPLE_WIN - 1) : further(negamax(g))
+                : over ? gained : gained + (g.isPlayerATurn() == mover ? 1 : -1) * negamax(g);
+            assertEquals(expected, after, mode + " best move");
+          }
+        }
+      } finally {
+        Files.deleteIfExists(f);
+      }
+    }
+  }
+
+  @Test
+  void interrupted_solve_resumes_to_the_same_file() throws IOException {
+    Path once = Files.createTempFile("sos", ".sosdb"), resumed = Files.createTempFile("sos", ".sosdb");
+    Files.delete(once);
+    Files.delete(resumed);
+    try {
+      new RetrogradeSolver(3, GameMode.GENERAL, once).solve(ForkJoinPool.commonPool());
+      assertFalse(new RetrogradeSolver(3, GameMode.GENERAL, resumed).solveLayers(ForkJoinPool.commonPool(), 4));
+      assertThrows(IOException.class, () -> PerfectPlayDatabase.open(resumed));
+      assertTrue(new RetrogradeSolver(3, GameMode.GENERAL, resumed).solveLayers(ForkJoinPool.commonPool(), Integer.MAX_VALUE));
+      assertArrayEquals(Files.readAllBytes(once), Files.readAllBytes(resumed));
+    } finally {
+      Files.deleteIfExists(once);
+      Files.deleteIfExists(resumed);
+    }
+  }
+
+  /** The database's value definition, computed by exhaustive search on the game itself. */
+  private static int negamax(SosGameBase g) {
+    int best = Integer.MIN_VALUE;
+    for (int r = 0; r < 3; r++) {
+      for (int c = 0; c < 3; c++) {
+        if (!g.isCellEmpty(r, c)) continue;
+        for (SosGameBase.Cell l : new SosGameBase.Cell[] { SosGameBase.Cell.S, SosGameBase.Cell.O }) {
+          boolean mover = g.isPlayerATurn();
+          int before = g.getScoreA() - g.getScoreB();
+          g.placeLetter(r, c, l);
+          int gained = (g.getScoreA() - g.getScoreB() - before) * (mover ? 1 : -1);
+          int v;
+          if (g.getMode() == GameMode.SIMPLE) {
+            if (g.getStatus() == SosGameBase.Status.IN_PROGRESS) v = further(negamax(g));
+            else v = g.getStatus() == SosGameBase.Status.DRAW ? 0 : PerfectPlayDatabase.SIMPLE_WIN - 1;
+          } else {
+            int rest = g.getStatus() == SosGameBase.Status.IN_PROGRESS ? negamax(g) : 0;
+            v = gained + (g.isPlayerATurn() == mover || g.getStatus() != SosGameBase.Status.IN_PROGRESS ? rest : -rest);
+          }
+          g.unmakeMove();
+          best = Math.max(best, v);
+        }
+      }
+    }
+    return best;
+  }
+
+  /** A Simple value seen from the other side, one ply further from its result. */
+  private static int further(int v) {
+    return v > 0 ? -(v - 1) : v < 0 ? -v - 1 : 0;
+  }
+}
@@ -3,6 +3,9 @@ package com.sosproject;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Random;
+
 class SosGameTest {
 
   // --- Your original tests (unchanged) ---
@@ -82,4 +85,126 @@ void simple_draw_when_board_full_no_sos() {
       }
     }
   }
+
+  @Test
+  void undo_reopens_a_won_simple_game() {
+    SosGameBase g = new SimpleSosGame(3);
+    g.placeLetter(0, 0, SosGameBase.Cell.S); // A
+    g.placeLetter(0, 1, SosGameBase.Cell.O); // B
+    g.placeLetter(0, 2, SosGameBase.Cell.S); // A -> SOS
+    g.undo(2);
+    assertEquals(SosGameBase.Status.IN_PROGRESS, g.getStatus());
+    assertFalse(g.isPlayerATurn());
+    assertEquals(new Move(0, 0, SosGameBase.Cell.S), g.lastMove());
+    assertThrows(IllegalArgumentException.class, () -> g.undo(2));
+  }
+
+  @Test
+  void large_boards_are_supported_up_to_the_limit() {
+    SosGameBase g = new GeneralSosGame(2000);
+    g.placeLetter(1998, 0, SosGameBase.Cell.S);    // A
+    g.placeLetter(1999, 1, SosGameBase.Cell.O);    // B
+    g.placeLetter(1999, 0, SosGameBase.Cell.S);    // A (no line)
+    g.placeLetter(1997, 0, SosGameBase.Cell.O);    // B
+    g.placeLetter(1999, 2, SosGameBase.Cell.S);    // A -> bottom row S O S
+    assertEquals(1, g.getScoreA());
+    assertEquals(SosGameBase.Status.IN_PROGRESS, g.getStatus());
+    assertFalse(g.isBoardFull());
+    assertThrows(IllegalArgumentException.class, () -> new SimpleSosGame(SosGameBase.MAX_SIZE + 1));
+    assertThrows(IllegalArgumentException.class, () -> new SimpleSosGame(2));
+  }
+
+  @Test
+  void empty_cell_set_tracks_moves_and_undo() {
+    SosGameBase g = new GeneralSosGame(5);
+    var rng = new java.util.Random(3);
+    Strategy ai = new RandomStrategy(3L);
+    for (int step = 0; step < 200; step++) {
+      if (g.getStatus() == SosGameBase.Status.IN_PROGRESS && (g.getMoveCount() == 0 || rng.nextInt(3) > 0)) {
+        g.makeMove(ai.choose(g));
+      } else {
+        g.unmakeMove();
+      }
+      var seen = new java.util.HashSet<Integer>();
+      for (int k = 0; k < g.getEmptyCount(); k++) {
+        int cell = g.getEmptyCell(k);
+        assertTrue(g.isCellEmpty(cell / 5, cell % 5));
+        assertTrue(seen.add(cell), "Empty cell listed twice");
+      }
+      assertEquals(25 - g.getMoveCount(), g.getEmptyCount());
+    }
+    g.resetBoard();
+    assertEquals(25, g.getEmptyCount());
+    assertThrows(IndexOutOfBoundsException.class, () -> g.getEmptyCell(25));
+  }
+
+  @Test
+  void symmetric_boards_share_a_canonical_hash() {
+    SosGameBase g = new GeneralSosGame(5), mirrored = new GeneralSosGame(5);
+    long empty = g.getHash();
+    Random rng = new Random(2);
+    for (int k = 0; k < 12; k++) {
+      int r, c;
+      do { r = rng.nextInt(5); c = rng.nextInt(5); } while (!g.isCellEmpty(r, c));
+      SosGameBase.Cell l = rng.nextBoolean() ? SosGameBase.Cell.S : SosGameBase.Cell.O;
+      g.placeLetter(r, c, l);
+      mirrored.placeLetter(c, 4 - r, l); // rotated 90 degrees
+      assertEquals(g.getCanonicalHash(), mirrored.getCanonicalHash());
+      assertEquals(g.getHash(), g.copy().getHash());
+      assertEquals(g.getHash(), SosGameBase.restore(g.snapshot()).getHash());
+    }
+    assertNotEquals(g.getHash(), mirrored.getHash());
+    g.undo(12);
+    assertEquals(empty, g.getHash());
+    assertNotEquals(empty, new SimpleSosGame(5).getHash(), "Mode is part of the hash");
+    assertNotEquals(empty, new GeneralSosGame(6).getHash(), "Size is part of the hash");
+  }
+
+  @Test
+  void large_boards_find_empty_cells_in_board_order_without_a_cell_list() {
+    int n = 300; // past the 256x256 dense limit, and not a whole number of blocks
+    SosGameBase g = new SimpleSosGame(n);
+    Random rng = new Random(5);
+    for (int step = 0; step < 400; step++) {
+      if (g.getMoveCount() == 0 || rng.nextInt(4) > 0) {
+        int r, c;
+        do {
+          r = rng.nextInt(n);
+          c = rng.nextInt(n);
+        } while (!g.isCellEmpty(r, c));
+        g.placeLetter(r, c, SosGameBase.Cell.O); // all O: no SOS, so the game runs on
+      } else {
+        g.unmakeMove();
+      }
+      if (step % 100 == 99) {
+        SosGameBase copy = g.copy();
+        int k = 0;
+        for (int cell = 0; cell < n * n; cell++) {
+          if (g.isCellEmpty(cell / n, cell % n)) {
+            assertEquals(cell, g.getEmptyCell(k));
+            assertEquals(cell, copy.getEmptyCell(k++));
+          }
+        }
+        assertEquals(g.getEmptyCount(), k);
+      }
+    }
+  }
+
+  @Test
+  void sos_lines_through_a_cell_name_their_end_cells() {
+    SosGameBase g = new GeneralSosGame(5);
+    // S O S across row 2 and down column 2, sharing the centre O at (2, 2)
+    g.placeLetter(2, 1, SosGameBase.Cell.S);
+    g.placeLetter(2, 3, SosGameBase.Cell.S);
+    g.placeLetter(1, 2, SosGameBase.Cell.S);
+    g.placeLetter(3, 2, SosGameBase.Cell.S);
+    g.placeLetter(2, 2, SosGameBase.Cell.O);
+    int[] out = new int[16];
+    assertEquals(2, g.sosLinesAt(2, 2, out));
+    assertArrayEquals(new int[] { 7, 17, 11, 13 }, Arrays.copyOf(out, 4), "Vertical, then horizontal");
+    assertEquals(1, g.sosLinesAt(2, 3, out));
+    assertArrayEquals(new int[] { 11, 13 }, Arrays.copyOf(out, 2));
+    assertEquals(0, g.sosLinesAt(0, 0, out), "Empty cell");
+    assertEquals(2, g.countAllSOS());
+  }
 }
@@ -0,0 +1,87 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class ThreatIndexTest {
+  private static final int[][] DIRS = { {1,0}, {0,1}, {1,1}, {1,-1} };
+  private static final SosGameBase.Cell S = SosGameBase.Cell.S, O = SosGameBase.Cell.O;
+
+  @Test
+  void index_matches_brute_force_through_moves_and_undo() {
+    SosGameBase g = new GeneralSosGame(6);
+    g.getThreats();
+    Random rng = new Random(5);
+    Strategy ai = new RandomStrategy(5L);
+    for (int step = 0; step < 300; step++) {
+      if (g.getStatus() == SosGameBase.Status.IN_PROGRESS && (g.getMoveCount() == 0 || rng.nextInt(4) > 0)) {
+        g.makeMove(ai.choose(g));
+      } else {
+        g.unmakeMove();
+      }
+      assertConsistent(g);
+      assertConsistent(g.copy());
+    }
+  }
+
+  @Test
+  void flags_a_cell_that_concedes_an_sos() {
+    // 300 is past LineTable.MAX_SIZE, so this also covers the table-free path.
+    for (int n : new int[] { 3, 300 }) {
+      SosGameBase g = new SimpleSosGame(n);
+      g.placeLetter(0, 0, S);
+      ThreatIndex t = g.getThreats();
+      assertEquals(1, t.concedes(1, O), "O at (0,1) leaves (0,2) open");
+      assertEquals(1, t.concedes(2, S), "S at (0,2) leaves (0,1) open");
+      assertEquals(0, t.getCompletingCount());
+      g.placeLetter(0, 1, O);
+      assertEquals(1, t.completes(2, S));
+      assertEquals(1, t.getCompletingCount());
+    }
+  }
+
+  private static void assertConsistent(SosGameBase g) {
+    ThreatIndex t = g.getThreats();
+    int n = g.getSize(), completing = 0;
+    for (int cell = 0; cell < n * n; cell++) {
+      int r = cell / n, c = cell % n;
+      if (!g.isCellEmpty(r, c)) {
+        assertFalse(Bitboard.get(t.completingCells(), cell));
+        continue;
+      }
+      for (SosGameBase.Cell l : new SosGameBase.Cell[] { S, O }) {
+        assertEquals(g.countSOSIfPlaced(r, c, l), t.completes(cell, l), "completes " + l + " at " + cell);
+        assertEquals(concedes(g, r, c, l), t.concedes(cell, l), "concedes " + l + " at " + cell);
+      }
+      boolean open = t.completes(cell, S) > 0 || t.completes(cell, O) > 0;
+      assertEquals(open, Bitboard.get(t.completingCells(), cell));
+      if (open) completing++;
+    }
+    assertEquals(completing, t.getCompletingCount());
+  }
+
+  /** Triples through (r,c) wanting {@code l} there, with one other letter right and one cell empty. */
+  private static int concedes(SosGameBase g, int r, int c, SosGameBase.Cell l) {
+    int n = g.getSize(), count = 0;
+    for (int[] d : DIRS) {
+      for (int k = 0; k < 3; k++) {
+        int r0 = r - k * d[0], c0 = c - k * d[1];
+        int empty = 0, right = 0;
+        boolean onBoard = true;
+        for (int j = 0; j < 3; j++) {
+          int rr = r0 + j * d[0], cc = c0 + j * d[1];
+          if (rr < 0 || rr >= n || cc < 0 || cc >= n) { onBoard = false; break; }
+          SosGameBase.Cell want = j == 1 ? O : S;
+          if (j == k && want != l) { onBoard = false; break; }
+          SosGameBase.Cell have = g.getCell(rr, cc);
+          if (have == SosGameBase.Cell.EMPTY) empty++;
+          else if (have == want) right++;
+        }
+        if (onBoard && empty == 2 && right == 1) count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,41 @@
+package com.sosproject;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.*;
+
+class TournamentRunnerTest {
+
+  @Test
+  void plays_every_game_and_streams_csv() throws Exception {
+    Path csv = Files.createTempFile("tournament", ".csv");
+    try {
+      TournamentRunner.Result r = new TournamentRunner(3, GameMode.GENERAL,
+          RandomStrategy::new, RandomStrategy::new).threads(3).seed(5L).csv(csv).run(500);
+      assertEquals(500, r.games());
+      assertEquals(500, r.xWins() + r.draws() + r.yWins());
+      assertTrue(r.meanGameLength() >= 3 && r.meanGameLength() <= 9);
+      assertEquals(501, Files.readAllLines(csv).size(), "Header plus one line per game");
+    } finally {
+      Files.deleteIfExists(csv);
+    }
+  }
+
+  @Test
+  void same_seed_and_threads_give_the_same_result() throws Exception {
+    var a = new TournamentRunner(4, GameMode.SIMPLE, RandomStrategy::new, RandomStrategy::new).threads(2).seed(9L).run(300);
+    var b = new TournamentRunner(4, GameMode.SIMPLE, RandomStrategy::new, RandomStrategy::new).threads(2).seed(9L).run(300);
+    assertEquals(a.xWins(), b.xWins());
+    assertEquals(a.draws(), b.draws());
+    assertEquals(a.totalMoves(), b.totalMoves());
+  }
+
+  @Test
+  void wilson_interval_brackets_the_rate() {
+    var r = new TournamentRunner.Result(1000, 600, 100, 300, 9000, 1_000_000_000L);
+    double[] ci = r.wilson95(r.xWins());
+    assertTrue(ci[0] < 0.6 && 0.6 < ci[1]);
+    assertEquals(1000.0, r.gamesPerSecond(), 1e-9);
+  }
+}